@@ -0,0 +1,95 @@
+package com.erikandreas.exchangedataservice.config;
+
+import com.erikandreas.exchangedataservice.cache.CachedValue;
+import com.erikandreas.exchangedataservice.cache.CompactRedisSerializer;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.DailyPriceAverage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Values as they travel to and from Redis through the serializer configured in {@link RedisConfig}:
+ * a {@link CryptoPrice} in its {@link CachedValue} envelope and a {@link DailyPriceAverage}, written
+ * either as JSON or in the compact binary layout.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisSerializationBenchmark {
+
+    @Param({"json", "compact"})
+    private String format;
+
+    private CompactRedisSerializer serializer;
+    private CachedValue cachedPrice;
+    private byte[] serializedPrice;
+    private DailyPriceAverage dailyAverage;
+    private byte[] serializedAverage;
+
+    @Setup
+    public void setUp() {
+        serializer = new CompactRedisSerializer(
+            new GenericJackson2JsonRedisSerializer(new RedisConfig().objectMapper()),
+            "compact".equals(format));
+
+        cachedPrice = new CachedValue(CryptoPrice.builder()
+            .symbol("BTCUSDT")
+            .price(new BigDecimal("45000.12000000"))
+            .exchange("Binance")
+            .bid(new BigDecimal("44999.90000000"))
+            .ask(new BigDecimal("45000.10000000"))
+            .timestamp(LocalDateTime.of(2024, 2, 13, 10, 15, 30))
+            .build(), 1707819330000L, 42);
+        serializedPrice = serializer.serialize(cachedPrice);
+
+        dailyAverage = DailyPriceAverage.builder()
+            .symbol("BTCUSDT")
+            .exchange("binance")
+            .averagePrice(new BigDecimal("45012.34567891"))
+            .date(LocalDate.of(2024, 2, 13))
+            .numberOfUpdates(117)
+            .build();
+        serializedAverage = serializer.serialize(dailyAverage);
+
+        System.out.printf("%n%s: cached price %d bytes, daily average %d bytes%n",
+            format, serializedPrice.length, serializedAverage.length);
+    }
+
+    @Benchmark
+    public byte[] serializeCachedPrice() {
+        return serializer.serialize(cachedPrice);
+    }
+
+    @Benchmark
+    public Object deserializeCachedPrice() {
+        return serializer.deserialize(serializedPrice);
+    }
+
+    @Benchmark
+    public byte[] serializeDailyAverage() {
+        return serializer.serialize(dailyAverage);
+    }
+
+    @Benchmark
+    public Object deserializeDailyAverage() {
+        return serializer.deserialize(serializedAverage);
+    }
+}
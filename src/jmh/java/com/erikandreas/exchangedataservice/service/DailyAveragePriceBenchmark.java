@@ -0,0 +1,58 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.model.FixedPrice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The arithmetic around the daily aggregate: scaling a sample for the Redis-side running sum on every
+ * update, and turning sum and count back into a mean on every read. The sample is scaled both from the
+ * {@link FixedPrice} prices are held as and from a BigDecimal, the form they were held in before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DailyAveragePriceBenchmark {
+
+    private BigDecimal price;
+    private FixedPrice fixedPrice;
+    private long scaledSum;
+    private long count;
+
+    @Setup
+    public void setUp() {
+        price = new BigDecimal("45000.12000000");
+        fixedPrice = FixedPrice.valueOf(price);
+        count = 288;
+        scaledSum = DailyAveragePriceService.toScaledSum(price) * count + 7;
+    }
+
+    @Benchmark
+    public long toScaledSum() {
+        return DailyAveragePriceService.toScaledSum(price);
+    }
+
+    @Benchmark
+    public long toScaledSumFixed() {
+        return fixedPrice.toUnscaled(DailyAveragePriceService.SUM_SCALE);
+    }
+
+    @Benchmark
+    public BigDecimal averageOf() {
+        return DailyAveragePriceService.averageOf(scaledSum, count);
+    }
+}
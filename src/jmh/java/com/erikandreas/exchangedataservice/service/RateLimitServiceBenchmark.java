@@ -0,0 +1,99 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.ratelimit.ExchangeRateLimiter;
+import com.erikandreas.exchangedataservice.ratelimit.LocalTokenBucket;
+import com.erikandreas.exchangedataservice.ratelimit.RedisTokenBucket;
+import com.erikandreas.exchangedataservice.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token consumption with many request threads hitting the same exchange bucket. The buckets are sized so
+ * they never run dry: this measures the cost of the bucket under contention, not rejections.
+ * <p>
+ * The shared variants use a Redis on localhost:6379 and show what the prefetch saves: with a batch of 1
+ * every call is a Redis round trip, with a batch of 1000 nearly every call is served locally.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitServiceBenchmark {
+
+    private static final long UNLIMITED = 1_000_000_000_000_000L;
+
+    private RateLimitService rateLimitService;
+    private LettuceConnectionFactory connectionFactory;
+    private TokenBucket sharedUnbatched;
+    private TokenBucket sharedPrefetched;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        rateLimitService = new RateLimitService(
+            new ExchangeRateLimiter("binance", unlimitedBucket(), UNLIMITED, Duration.ofDays(365), null, meterRegistry),
+            new ExchangeRateLimiter("kraken", unlimitedBucket(), UNLIMITED, Duration.ofDays(365), null, meterRegistry),
+            false, 0, Duration.ZERO, Duration.ZERO,
+            meterRegistry);
+
+        connectionFactory = new LettuceConnectionFactory("localhost", 6379);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        sharedUnbatched = new RedisTokenBucket(redisTemplate, "ratelimit:benchmark:1", UNLIMITED, Duration.ofDays(365),
+            1, Duration.ofSeconds(1), unlimitedBucket());
+        sharedPrefetched = new RedisTokenBucket(redisTemplate, "ratelimit:benchmark:1000", UNLIMITED, Duration.ofDays(365),
+            1000, Duration.ofSeconds(1), unlimitedBucket());
+    }
+
+    @TearDown
+    public void tearDown() {
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean tryConsumeUncontended() {
+        return rateLimitService.tryConsume("binance");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean tryConsumeContended() {
+        return rateLimitService.tryConsume("binance");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean sharedBucketEveryCall() {
+        return sharedUnbatched.tryConsume(1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean sharedBucketPrefetched() {
+        return sharedPrefetched.tryConsume(1);
+    }
+
+    private static TokenBucket unlimitedBucket() {
+        return new LocalTokenBucket(UNLIMITED, Duration.ofDays(365));
+    }
+}
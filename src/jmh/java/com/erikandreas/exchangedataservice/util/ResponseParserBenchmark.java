@@ -0,0 +1,136 @@
+package com.erikandreas.exchangedataservice.util;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming {@link ResponseParser} against the tree model / DTO binding it replaced, for a single ticker
+ * and for full-universe snapshots. Run with {@code -prof gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseParserBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Param({"1", "2000"})
+    private int symbols;
+
+    private byte[] binanceResponse;
+    private String binanceResponseText;
+    private byte[] krakenResponse;
+    private Map<String, String> symbolsByPair;
+
+    @Setup
+    public void setUp() {
+        StringBuilder binance = new StringBuilder("[");
+        StringBuilder kraken = new StringBuilder("{\"error\":[],\"result\":{");
+        symbolsByPair = new LinkedHashMap<>();
+        for (int i = 0; i < symbols; i++) {
+            String symbol = "SYM" + i + "USDT";
+            String price = (45000 + i) + ".12000000";
+            symbolsByPair.put(symbol, symbol);
+            binance.append(i > 0 ? "," : "")
+                .append("{\"symbol\":\"").append(symbol).append("\",\"price\":\"").append(price).append("\"}");
+            kraken.append(i > 0 ? "," : "")
+                .append('"').append(symbol).append("\":{")
+                .append("\"a\":[\"").append(price).append("\",\"1\",\"1.000\"],")
+                .append("\"b\":[\"").append(price).append("\",\"2\",\"2.000\"],")
+                .append("\"c\":[\"").append(price).append("\",\"0.01\"],")
+                .append("\"v\":[\"1500.1\",\"3000.2\"],\"p\":[\"45001.1\",\"45002.2\"],\"t\":[1200,2400],")
+                .append("\"l\":[\"44000.0\",\"43900.0\"],\"h\":[\"46000.0\",\"46100.0\"],\"o\":\"45010.0\"}");
+        }
+        binance.append(']');
+        kraken.append("}}");
+
+        binanceResponseText = symbols == 1 ? binance.substring(1, binance.length() - 1) : binance.toString();
+        binanceResponse = binanceResponseText.getBytes(StandardCharsets.UTF_8);
+        krakenResponse = kraken.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object binanceStreaming() {
+        return symbols == 1
+            ? ResponseParser.parseBinanceResponse(binanceResponse, "SYM0USDT")
+            : ResponseParser.parseBinanceBatchResponse(binanceResponse);
+    }
+
+    @Benchmark
+    public Object binanceTree() throws Exception {
+        JsonNode root = objectMapper.readTree(binanceResponseText);
+        if (!root.isArray()) {
+            return toPrice(root.get("symbol").asText(), root.get("price").asText(), "Binance");
+        }
+        List<CryptoPrice> prices = new ArrayList<>(root.size());
+        for (JsonNode ticker : root) {
+            prices.add(toPrice(ticker.get("symbol").asText(), ticker.get("price").asText(), "Binance"));
+        }
+        return prices;
+    }
+
+    @Benchmark
+    public Object krakenStreaming() {
+        return ResponseParser.parseKrakenResponse(krakenResponse, symbolsByPair);
+    }
+
+    @Benchmark
+    public Object krakenDto() throws Exception {
+        KrakenTickerDTO dto = objectMapper.readValue(krakenResponse, KrakenTickerDTO.class);
+        List<CryptoPrice> prices = new ArrayList<>(symbolsByPair.size());
+        symbolsByPair.forEach((pair, symbol) ->
+            prices.add(toPrice(symbol, dto.getResult().get(pair).getAsk().get(0), "Kraken")));
+        return prices;
+    }
+
+    private static CryptoPrice toPrice(String symbol, String price, String exchange) {
+        return CryptoPrice.builder()
+            .symbol(symbol)
+            .price(new BigDecimal(price))
+            .exchange(exchange)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+
+    // The DTO the Kraken services used to bind responses to, kept here as the baseline
+    @Data
+    public static class KrakenTickerDTO {
+        private List<String> error;
+        private Map<String, KrakenTickerInfo> result;
+
+        @Data
+        public static class KrakenTickerInfo {
+            @JsonProperty("a")
+            private List<String> ask;
+
+            @JsonProperty("b")
+            private List<String> bid;
+        }
+    }
+}
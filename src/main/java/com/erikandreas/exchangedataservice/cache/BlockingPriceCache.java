@@ -0,0 +1,169 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.ingestion.LatestPriceTable;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Access to the "prices" cache for the blocking services: streamed and cached symbols are served
+ * locally and all missing ones are handed to the loader in a single call. Stale prices are served
+ * marked with their age and refreshed in the background at {@link Priority#BACKGROUND}.
+ */
+@Component
+@Slf4j
+public class BlockingPriceCache {
+
+    private final TwoTierCache cache;
+    private final LatestPriceTable latestPrices;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public BlockingPriceCache(TwoTierCacheManager cacheManager, LatestPriceTable latestPrices) {
+        this.cache = cacheManager.getCache(ReactivePriceCache.CACHE_NAME);
+        this.latestPrices = latestPrices;
+    }
+
+    public CryptoPrice get(String exchange, String symbol, Supplier<CryptoPrice> loader) {
+        CryptoPrice streamed = latestPrices.getFresh(exchange, symbol);
+        if (streamed != null) {
+            return streamed;
+        }
+
+        String key = exchange + ":" + symbol;
+        CachedValue entry;
+        try {
+            entry = cache.getEntry(key, loader::get);
+        } catch (Cache.ValueRetrievalException e) {
+            // Surface the loader's own exception, as @Cacheable does
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+        if (!cache.isStale(entry)) {
+            return (CryptoPrice) entry.getValue();
+        }
+        cache.refreshInBackground(key, () -> Priority.callAs(Priority.BACKGROUND, loader));
+        return staleCopy(entry);
+    }
+
+    public List<CryptoPrice> getAll(String exchange, List<String> symbols, Function<List<String>, List<CryptoPrice>> loader) {
+        return getAll(exchange, symbols, loader, true);
+    }
+
+    /**
+     * Like {@link #getAll}, but stale prices are loaded along with the missing ones instead of being served.
+     */
+    public List<CryptoPrice> getAllFresh(String exchange, List<String> symbols, Function<List<String>, List<CryptoPrice>> loader) {
+        return getAll(exchange, symbols, loader, false);
+    }
+
+    private List<CryptoPrice> getAll(
+            String exchange,
+            List<String> symbols,
+            Function<List<String>, List<CryptoPrice>> loader,
+            boolean serveStale) {
+        String keyPrefix = exchange + ":";
+        Map<String, CryptoPrice> prices = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> stale = new ArrayList<>();
+        for (String symbol : symbols) {
+            CryptoPrice streamed = latestPrices.getFresh(exchange, symbol);
+            if (streamed != null) {
+                prices.put(symbol, streamed);
+                continue;
+            }
+            CachedValue entry = cache.getEntry(keyPrefix + symbol);
+            if (entry == null || (!serveStale && cache.isStale(entry))) {
+                missing.add(symbol);
+            } else if (cache.isStale(entry)) {
+                prices.put(symbol, staleCopy(entry));
+                stale.add(symbol);
+            } else {
+                prices.put(symbol, (CryptoPrice) entry.getValue());
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (CryptoPrice price : load(keyPrefix, missing, loader)) {
+                prices.put(price.getSymbol(), price);
+            }
+        }
+        if (!stale.isEmpty()) {
+            refreshInBackground(keyPrefix, stale, loader);
+        }
+
+        return symbols.stream()
+            .map(prices::get)
+            .filter(Objects::nonNull)
+            .toList();
+    }
+
+    /**
+     * Symbols whose cached price is missing or goes stale within {@code ahead}; symbols with a fresh
+     * streamed price never need a refresh.
+     */
+    public List<String> dueForRefresh(String exchange, List<String> symbols, Duration ahead) {
+        return symbols.stream()
+            .filter(symbol -> !latestPrices.hasFresh(exchange, symbol))
+            .filter(symbol -> {
+                CachedValue entry = cache.getEntry(exchange + ":" + symbol);
+                return entry == null || cache.isStaleWithin(entry, ahead);
+            })
+            .toList();
+    }
+
+    /**
+     * Fetches {@code symbols} with a single loader call and caches them, whatever their cache state.
+     */
+    public List<CryptoPrice> refresh(String exchange, List<String> symbols, Function<List<String>, List<CryptoPrice>> loader) {
+        return load(exchange + ":", symbols, loader);
+    }
+
+    // One batch call for all stale symbols that no earlier refresh is already fetching
+    private void refreshInBackground(String keyPrefix, List<String> symbols, Function<List<String>, List<CryptoPrice>> loader) {
+        List<String> claimed = symbols.stream()
+            .filter(symbol -> refreshing.add(keyPrefix + symbol))
+            .toList();
+        if (claimed.isEmpty()) {
+            return;
+        }
+        Thread.ofVirtual().name("price-refresh").start(() -> {
+            try {
+                Priority.callAs(Priority.BACKGROUND, () -> load(keyPrefix, claimed, loader));
+            } catch (RuntimeException e) {
+                log.warn("Refresh of {} stale {} prices failed: {}", claimed.size(), keyPrefix, e.getMessage());
+            } finally {
+                claimed.forEach(symbol -> refreshing.remove(keyPrefix + symbol));
+            }
+        });
+    }
+
+    private List<CryptoPrice> load(String keyPrefix, List<String> symbols, Function<List<String>, List<CryptoPrice>> loader) {
+        long start = System.currentTimeMillis();
+        List<CryptoPrice> loaded = loader.apply(symbols);
+        long loadMillis = System.currentTimeMillis() - start;
+        for (CryptoPrice price : loaded) {
+            cache.put(keyPrefix + price.getSymbol(), price, loadMillis);
+        }
+        return loaded;
+    }
+
+    // Copy, so the instance held in L1 keeps looking fresh to whoever reads it after the next refresh
+    static CryptoPrice staleCopy(CachedValue entry) {
+        return ((CryptoPrice) entry.getValue()).toBuilder()
+            .stale(true)
+            .ageSeconds((System.currentTimeMillis() - entry.getWrittenAt()) / 1000)
+            .build();
+    }
+}
@@ -0,0 +1,47 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * Announces L1 invalidations to the other nodes over Redis pub/sub.
+ * Message format: {@code <op>|<nodeId>|<cacheName>|<key>} where op is E (evict) or C (clear).
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    static final String EVICT = "E";
+    static final String CLEAR = "C";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void publishEvict(String cacheName, Object key) {
+        publish(EVICT + "|" + nodeId + "|" + cacheName + "|" + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(CLEAR + "|" + nodeId + "|" + cacheName + "|");
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // Peers fall back to their L1 TTL if the notification is lost
+            log.warn("Failed to publish cache invalidation: {}", e.getMessage());
+        }
+    }
+}
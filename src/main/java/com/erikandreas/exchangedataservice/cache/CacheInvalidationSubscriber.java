@@ -0,0 +1,60 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.time.Duration;
+
+/**
+ * Starts the invalidation listener container in the background and keeps retrying while Redis is
+ * unreachable, so the application (like the rest of the Redis usage) tolerates a late Redis.
+ */
+@Slf4j
+public class CacheInvalidationSubscriber implements SmartLifecycle {
+
+    private final RedisMessageListenerContainer container;
+    private final Duration retryInterval;
+    private volatile boolean running;
+
+    public CacheInvalidationSubscriber(RedisMessageListenerContainer container, Duration retryInterval) {
+        this.container = container;
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        Thread.ofVirtual().name("cache-invalidation-subscriber").start(this::subscribe);
+    }
+
+    private void subscribe() {
+        while (running) {
+            try {
+                container.start();
+                log.info("Subscribed to cache invalidation channel");
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Cache invalidation subscription failed, retrying in {}: {}", retryInterval, e.getMessage());
+                container.stop();
+            }
+            try {
+                Thread.sleep(retryInterval);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        container.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,18 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Envelope stored in both cache tiers. Keeps the time the value was written and how long it took to load,
+ * which is what the probabilistic early expiration needs to decide when to refresh.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedValue {
+    private Object value;
+    private long writtenAt;   // epoch millis
+    private long loadMillis;
+}
@@ -0,0 +1,306 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.DailyPriceAverage;
+import com.erikandreas.exchangedataservice.model.FixedPrice;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-layout binary encoding for the values we keep in Redis: {@link CryptoPrice} and
+ * {@link DailyPriceAverage}, optionally inside a {@link CachedValue} envelope. Prices are stored as
+ * scale plus unscaled long, timestamps as epoch millis (UTC) and known exchange names as a one-byte id.
+ * <p>
+ * Every value starts with a version byte below {@code 0x20}, which JSON never starts with, so anything
+ * else is handed to the JSON serializer. That keeps entries written before this codec (or by nodes
+ * configured to write JSON) readable, and values this codec has no layout for are written as JSON.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte VERSION = 1;
+
+    private static final byte CRYPTO_PRICE = 1;
+    private static final byte DAILY_AVERAGE = 2;
+    private static final byte ENVELOPE = (byte) 0x80;
+
+    private static final int HAS_BID = 1;
+    private static final int HAS_ASK = 1 << 1;
+    private static final int HAS_TIMESTAMP = 1 << 2;
+    private static final int HAS_AVERAGE = 1 << 3;
+    private static final int HAS_DATE = 1 << 4;
+
+    // Append only: the position is the id stored in Redis
+    private static final List<String> EXCHANGES = List.of("Binance", "Kraken", "binance", "kraken");
+    private static final int INLINE_EXCHANGE = 0xFF;
+
+    private final RedisSerializer<Object> jsonSerializer;
+    private final boolean writeCompact;
+
+    /**
+     * @param writeCompact {@code false} keeps writing JSON while still reading both formats, for rolling
+     *                     out (or back) across nodes that do not all understand the binary layout yet
+     */
+    public CompactRedisSerializer(RedisSerializer<Object> jsonSerializer, boolean writeCompact) {
+        this.jsonSerializer = jsonSerializer;
+        this.writeCompact = writeCompact;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (writeCompact) {
+            byte[] compact = encode(value);
+            if (compact != null) {
+                return compact;
+            }
+        }
+        return jsonSerializer.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] >= 0x20) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes[0] != VERSION) {
+            throw new SerializationException("Unsupported cache value version: " + bytes[0]);
+        }
+        try {
+            return decode(ByteBuffer.wrap(bytes, 1, bytes.length - 1));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new SerializationException("Corrupt cache value", e);
+        }
+    }
+
+    // Returns null when the value has no binary layout, so the caller falls back to JSON
+    private static byte[] encode(Object value) {
+        Object payload = value instanceof CachedValue cached ? cached.getValue() : value;
+        if (!(payload instanceof CryptoPrice) && !(payload instanceof DailyPriceAverage)) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(128 + sizeOfStrings(payload));
+        buffer.put(VERSION);
+        byte type = payload instanceof CryptoPrice ? CRYPTO_PRICE : DAILY_AVERAGE;
+        if (value instanceof CachedValue cached) {
+            buffer.put((byte) (type | ENVELOPE));
+            putVarLong(buffer, cached.getWrittenAt());
+            putVarLong(buffer, cached.getLoadMillis());
+        } else {
+            buffer.put(type);
+        }
+
+        boolean encoded = payload instanceof CryptoPrice price
+            ? encodePrice(buffer, price)
+            : encodeAverage(buffer, (DailyPriceAverage) payload);
+        return encoded ? Arrays.copyOf(buffer.array(), buffer.position()) : null;
+    }
+
+    private static boolean encodePrice(ByteBuffer buffer, CryptoPrice price) {
+        FixedPrice last = price.getFixedPrice();
+        FixedPrice bid = price.getFixedBid();
+        FixedPrice ask = price.getFixedAsk();
+        if (last == null || !last.fitsLong() || (bid != null && !bid.fitsLong()) || (ask != null && !ask.fitsLong())) {
+            return false;
+        }
+        int flags = (bid != null ? HAS_BID : 0)
+            | (ask != null ? HAS_ASK : 0)
+            | (price.getTimestamp() != null ? HAS_TIMESTAMP : 0);
+        buffer.put((byte) flags);
+        putExchange(buffer, price.getExchange());
+        putString(buffer, price.getSymbol());
+        putFixed(buffer, last);
+        if (bid != null) {
+            putFixed(buffer, bid);
+        }
+        if (ask != null) {
+            putFixed(buffer, ask);
+        }
+        if (price.getTimestamp() != null) {
+            putVarLong(buffer, price.getTimestamp().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        return true;
+    }
+
+    private static boolean encodeAverage(ByteBuffer buffer, DailyPriceAverage average) {
+        if (!fitsLong(average.getAveragePrice())) {
+            return false;
+        }
+        int flags = (average.getAveragePrice() != null ? HAS_AVERAGE : 0)
+            | (average.getDate() != null ? HAS_DATE : 0);
+        buffer.put((byte) flags);
+        putExchange(buffer, average.getExchange());
+        putString(buffer, average.getSymbol());
+        if (average.getAveragePrice() != null) {
+            putDecimal(buffer, average.getAveragePrice());
+        }
+        if (average.getDate() != null) {
+            putVarLong(buffer, average.getDate().toEpochDay());
+        }
+        putVarLong(buffer, average.getNumberOfUpdates());
+        return true;
+    }
+
+    private static Object decode(ByteBuffer buffer) {
+        byte type = buffer.get();
+        CachedValue envelope = null;
+        if ((type & ENVELOPE) != 0) {
+            envelope = new CachedValue(null, getVarLong(buffer), getVarLong(buffer));
+        }
+
+        Object payload = switch ((byte) (type & ~ENVELOPE)) {
+            case CRYPTO_PRICE -> decodePrice(buffer);
+            case DAILY_AVERAGE -> decodeAverage(buffer);
+            default -> throw new IllegalArgumentException("Unknown value type " + type);
+        };
+        if (envelope == null) {
+            return payload;
+        }
+        envelope.setValue(payload);
+        return envelope;
+    }
+
+    private static CryptoPrice decodePrice(ByteBuffer buffer) {
+        int flags = buffer.get();
+        CryptoPrice.CryptoPriceBuilder price = CryptoPrice.builder()
+            .exchange(getExchange(buffer))
+            .symbol(getString(buffer))
+            .price(getFixed(buffer));
+        if ((flags & HAS_BID) != 0) {
+            price.bid(getFixed(buffer));
+        }
+        if ((flags & HAS_ASK) != 0) {
+            price.ask(getFixed(buffer));
+        }
+        if ((flags & HAS_TIMESTAMP) != 0) {
+            price.timestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(getVarLong(buffer)), ZoneOffset.UTC));
+        }
+        return price.build();
+    }
+
+    private static DailyPriceAverage decodeAverage(ByteBuffer buffer) {
+        int flags = buffer.get();
+        DailyPriceAverage.DailyPriceAverageBuilder average = DailyPriceAverage.builder()
+            .exchange(getExchange(buffer))
+            .symbol(getString(buffer));
+        if ((flags & HAS_AVERAGE) != 0) {
+            average.averagePrice(getDecimal(buffer));
+        }
+        if ((flags & HAS_DATE) != 0) {
+            average.date(LocalDate.ofEpochDay(getVarLong(buffer)));
+        }
+        return average.numberOfUpdates((int) getVarLong(buffer)).build();
+    }
+
+    private static int sizeOfStrings(Object payload) {
+        String symbol = payload instanceof CryptoPrice price ? price.getSymbol() : ((DailyPriceAverage) payload).getSymbol();
+        String exchange = payload instanceof CryptoPrice price ? price.getExchange() : ((DailyPriceAverage) payload).getExchange();
+        // Worst case of 3 UTF-8 bytes per char
+        return 3 * ((symbol != null ? symbol.length() : 0) + (exchange != null ? exchange.length() : 0));
+    }
+
+    private static boolean fitsLong(BigDecimal value) {
+        return value == null || (value.unscaledValue().bitLength() < 64 && value.scale() == (byte) value.scale());
+    }
+
+    private static void putDecimal(ByteBuffer buffer, BigDecimal value) {
+        buffer.put((byte) value.scale());
+        putVarLong(buffer, value.unscaledValue().longValue());
+    }
+
+    private static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = buffer.get();
+        return new BigDecimal(BigInteger.valueOf(getVarLong(buffer)), scale);
+    }
+
+    // Same layout as putDecimal, without going through BigDecimal
+    private static void putFixed(ByteBuffer buffer, FixedPrice value) {
+        buffer.put((byte) value.scale());
+        putVarLong(buffer, value.unscaled());
+    }
+
+    private static FixedPrice getFixed(ByteBuffer buffer) {
+        int scale = buffer.get();
+        return FixedPrice.of(getVarLong(buffer), scale);
+    }
+
+    private static void putExchange(ByteBuffer buffer, String exchange) {
+        int id = exchange != null ? EXCHANGES.indexOf(exchange) : -1;
+        if (id >= 0) {
+            buffer.put((byte) (id + 1));
+        } else if (exchange == null) {
+            buffer.put((byte) 0);
+        } else {
+            buffer.put((byte) INLINE_EXCHANGE);
+            putString(buffer, exchange);
+        }
+    }
+
+    private static String getExchange(ByteBuffer buffer) {
+        int id = buffer.get() & 0xFF;
+        if (id == 0) {
+            return null;
+        }
+        return id == INLINE_EXCHANGE ? getString(buffer) : EXCHANGES.get(id - 1);
+    }
+
+    // Length + 1 so that 0 can mean null
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            putVarLong(buffer, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(buffer, bytes.length + 1);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = (int) getVarLong(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // Zigzag varint: small magnitudes of either sign take few bytes
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        buffer.put((byte) zigzag);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
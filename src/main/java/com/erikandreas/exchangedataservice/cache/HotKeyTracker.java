@@ -0,0 +1,146 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded heavy-hitters sketch (Space-Saving) over price requests. At most {@code tracked-keys} symbols
+ * are counted; an unseen symbol takes over the slot of the least requested one, inheriting its count as
+ * possible error, so frequently requested symbols always stay tracked. Counts are halved every
+ * {@code decay-interval} and dropped at zero, so the ranking follows current demand.
+ * <p>
+ * {@link #record} runs for every requested symbol, event-loop threads included, so it only bumps a
+ * striped counter; those are folded into the sketch by whichever caller finds about {@code tracked-keys}
+ * of them waiting and the lock free, and before every {@link #top} read.
+ */
+@Component
+public class HotKeyTracker {
+
+    private final int capacity;
+    private final long decayIntervalNanos;
+    private final Map<String, Count> counts = new HashMap<>();
+    private final ConcurrentMap<String, LongAdder> recent = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private long nextDecay;
+
+    public HotKeyTracker(
+            @Value("${cache.refresh-ahead.tracked-keys:1000}") int capacity,
+            @Value("${cache.refresh-ahead.decay-interval:1m}") Duration decayInterval) {
+        this.capacity = capacity;
+        this.decayIntervalNanos = decayInterval.toNanos();
+        this.nextDecay = System.nanoTime() + decayIntervalNanos;
+    }
+
+    public void record(String exchange, String symbol) {
+        String key = exchange + ":" + symbol;
+        LongAdder hits = recent.get(key);
+        if (hits == null) {
+            hits = recent.computeIfAbsent(key, k -> new LongAdder());
+        }
+        hits.increment();
+
+        if (recent.size() >= capacity && lock.tryLock()) {
+            try {
+                compact();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * The at most {@code limit} most requested symbols of {@code exchange} that were requested at least
+     * {@code minHits} times for certain, most requested first.
+     */
+    public List<String> top(String exchange, int limit, long minHits) {
+        lock.lock();
+        try {
+            compact();
+            String prefix = exchange + ":";
+            return counts.entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith(prefix) && entry.getValue().guaranteed() >= minHits)
+                .sorted(Comparator.comparingLong((Map.Entry<String, Count> entry) -> entry.getValue().hits).reversed())
+                .limit(limit)
+                .map(entry -> entry.getKey().substring(prefix.length()))
+                .toList();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Hits recorded into a counter after it was taken out are lost; the sketch is approximate anyway
+    private void compact() {
+        decayIfDue();
+        Iterator<Map.Entry<String, LongAdder>> iterator = recent.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, LongAdder> entry = iterator.next();
+            iterator.remove();
+            add(entry.getKey(), entry.getValue().sum());
+        }
+    }
+
+    private void add(String key, long hits) {
+        Count count = counts.get(key);
+        if (count != null) {
+            count.hits += hits;
+            return;
+        }
+        if (counts.size() < capacity) {
+            counts.put(key, new Count(hits, 0));
+            return;
+        }
+
+        // Linear scan for the minimum; only unseen symbols pay for it, off the request path
+        Map.Entry<String, Count> min = null;
+        for (Map.Entry<String, Count> entry : counts.entrySet()) {
+            if (min == null || entry.getValue().hits < min.getValue().hits) {
+                min = entry;
+            }
+        }
+        long floor = min.getValue().hits;
+        counts.remove(min.getKey());
+        counts.put(key, new Count(floor + hits, floor));
+    }
+
+    private void decayIfDue() {
+        long now = System.nanoTime();
+        if (now - nextDecay < 0) {
+            return;
+        }
+        nextDecay = now + decayIntervalNanos;
+        Iterator<Count> iterator = counts.values().iterator();
+        while (iterator.hasNext()) {
+            Count count = iterator.next();
+            count.hits /= 2;
+            count.error /= 2;
+            if (count.hits == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static final class Count {
+        long hits;
+        long error;
+
+        Count(long hits, long error) {
+            this.hits = hits;
+            this.error = error;
+        }
+
+        long guaranteed() {
+            return hits - error;
+        }
+    }
+}
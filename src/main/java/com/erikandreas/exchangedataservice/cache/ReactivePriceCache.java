@@ -0,0 +1,186 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.ingestion.LatestPriceTable;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reactive access to the "prices" cache. Stores resolved {@link CryptoPrice} values (never publishers)
+ * under the same keys as the blocking {@code @Cacheable} services, and lets concurrent misses for a key
+ * share a single upstream request. Symbols with a fresh streamed price are answered from the
+ * {@link LatestPriceTable} without touching the cache. Stale prices are served marked with their age
+ * while they are refreshed in the background at {@link Priority#BACKGROUND}.
+ */
+@Component
+@Slf4j
+public class ReactivePriceCache {
+
+    public static final String CACHE_NAME = "prices";
+
+    private final TwoTierCache cache;
+    private final LatestPriceTable latestPrices;
+    private final ConcurrentMap<String, Mono<CryptoPrice>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    public ReactivePriceCache(TwoTierCacheManager cacheManager, LatestPriceTable latestPrices) {
+        this.cache = cacheManager.getCache(CACHE_NAME);
+        this.latestPrices = latestPrices;
+    }
+
+    public Mono<CryptoPrice> get(String exchange, String symbol, Supplier<Mono<CryptoPrice>> loader) {
+        return Mono.defer(() -> {
+            CryptoPrice streamed = latestPrices.getFresh(exchange, symbol);
+            if (streamed != null) {
+                return Mono.just(streamed);
+            }
+
+            String key = exchange + ":" + symbol;
+            Cache.ValueWrapper local = cache.getLocal(key);
+            if (local != null) {
+                return Mono.just((CryptoPrice) local.get());
+            }
+            return inFlight.computeIfAbsent(key, k -> lookupOrLoad(k, loader));
+        });
+    }
+
+    // Shared by concurrent callers of a key until it completes, or until all of them cancel, whichever is first
+    private Mono<CryptoPrice> lookupOrLoad(String key, Supplier<Mono<CryptoPrice>> loader) {
+        AtomicReference<Mono<CryptoPrice>> self = new AtomicReference<>();
+        Mono<CryptoPrice> shared = lookupOrLoadOnce(key, loader)
+            // Before the result reaches callers, so one retrying straight after an error starts a new load
+            .doOnTerminate(() -> inFlight.remove(key, self.get()))
+            .doOnCancel(() -> inFlight.remove(key, self.get()))
+            .flux()
+            .publish()
+            .refCount()
+            .singleOrEmpty();
+        self.set(shared);
+        return shared;
+    }
+
+    /**
+     * Serves streamed and cached symbols and fetches all missing ones with a single loader call.
+     */
+    public Mono<List<CryptoPrice>> getAll(
+            String exchange,
+            List<String> symbols,
+            Function<List<String>, Mono<List<CryptoPrice>>> loader) {
+        String keyPrefix = exchange + ":";
+        return Mono.fromCallable(() -> {
+                Map<String, CryptoPrice> cached = new LinkedHashMap<>();
+                for (String symbol : symbols) {
+                    CryptoPrice price = latestPrices.getFresh(exchange, symbol);
+                    if (price == null) {
+                        CachedValue entry = cache.getEntry(keyPrefix + symbol);
+                        price = entry == null ? null
+                            : cache.isStale(entry) ? BlockingPriceCache.staleCopy(entry)
+                            : (CryptoPrice) entry.getValue();
+                    }
+                    if (price != null) {
+                        cached.put(symbol, price);
+                    }
+                }
+                return cached;
+            })
+            .subscribeOn(Schedulers.boundedElastic())
+            .flatMap(prices -> {
+                List<String> stale = symbols.stream()
+                    .filter(symbol -> prices.containsKey(symbol) && Boolean.TRUE.equals(prices.get(symbol).getStale()))
+                    .toList();
+                if (!stale.isEmpty()) {
+                    refreshInBackground(keyPrefix, stale, loader);
+                }
+
+                List<String> missing = symbols.stream()
+                    .filter(symbol -> !prices.containsKey(symbol))
+                    .toList();
+                if (missing.isEmpty()) {
+                    return Mono.just(prices);
+                }
+
+                long start = System.currentTimeMillis();
+                return loader.apply(missing)
+                    .flatMapIterable(Function.identity())
+                    .concatMap(price -> store(keyPrefix + price.getSymbol(), price, System.currentTimeMillis() - start))
+                    .doOnNext(price -> prices.put(price.getSymbol(), price))
+                    .then(Mono.just(prices));
+            })
+            .map(prices -> symbols.stream()
+                .map(prices::get)
+                .filter(Objects::nonNull)
+                .toList());
+    }
+
+    private Mono<CryptoPrice> lookupOrLoadOnce(String key, Supplier<Mono<CryptoPrice>> loader) {
+        return Mono.fromCallable(() -> cache.getEntry(key))
+            .subscribeOn(Schedulers.boundedElastic())
+            .map(entry -> {
+                if (!cache.isStale(entry)) {
+                    return (CryptoPrice) entry.getValue();
+                }
+                refreshInBackground(key, loader);
+                return BlockingPriceCache.staleCopy(entry);
+            })
+            .switchIfEmpty(Mono.defer(() -> load(key, loader)));
+    }
+
+    private void refreshInBackground(String key, Supplier<Mono<CryptoPrice>> loader) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        load(key, loader)
+            .contextWrite(Priority.BACKGROUND.inContext())
+            .doFinally(signal -> refreshing.remove(key))
+            .subscribe(null, e -> log.warn("Refresh of stale {} failed: {}", key, e.getMessage()));
+    }
+
+    private void refreshInBackground(
+            String keyPrefix,
+            List<String> symbols,
+            Function<List<String>, Mono<List<CryptoPrice>>> loader) {
+        List<String> claimed = symbols.stream()
+            .filter(symbol -> refreshing.add(keyPrefix + symbol))
+            .toList();
+        if (claimed.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Mono.defer(() -> loader.apply(claimed))
+            .flatMapIterable(Function.identity())
+            .concatMap(price -> store(keyPrefix + price.getSymbol(), price, System.currentTimeMillis() - start))
+            .contextWrite(Priority.BACKGROUND.inContext())
+            .doFinally(signal -> claimed.forEach(symbol -> refreshing.remove(keyPrefix + symbol)))
+            .subscribe(null, e -> log.warn("Refresh of {} stale {} prices failed: {}", claimed.size(), keyPrefix, e.getMessage()));
+    }
+
+    private Mono<CryptoPrice> load(String key, Supplier<Mono<CryptoPrice>> loader) {
+        long start = System.currentTimeMillis();
+        return loader.get().flatMap(price -> store(key, price, System.currentTimeMillis() - start));
+    }
+
+    private Mono<CryptoPrice> store(String key, CryptoPrice price, long loadMillis) {
+        return Mono.fromRunnable(() -> cache.put(key, price, loadMillis))
+            .subscribeOn(Schedulers.boundedElastic())
+            .onErrorResume(e -> {
+                log.warn("Failed to cache price for {}: {}", key, e.getMessage());
+                return Mono.empty();
+            })
+            .thenReturn(price);
+    }
+}
@@ -0,0 +1,62 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Per-key call deduplication for blocking callers: the first caller for a key runs the loader,
+ * concurrent callers wait (bounded) for its result or failure.
+ */
+public class SingleFlight {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+
+    public SingleFlight(Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    public boolean isInFlight(Object key) {
+        return calls.containsKey(key);
+    }
+
+    public Object execute(Object key, Callable<?> loader) throws Exception {
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(key, existing);
+        }
+
+        try {
+            Object value = loader.call();
+            call.complete(value);
+            return value;
+        } catch (Exception e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    private Object await(Object key, CompletableFuture<Object> call) throws Exception {
+        try {
+            return call.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } catch (TimeoutException e) {
+            throw new ExchangeException("Timed out waiting for in-flight load of " + key, e);
+        }
+    }
+}
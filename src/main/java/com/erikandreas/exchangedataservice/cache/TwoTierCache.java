@@ -0,0 +1,358 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache with a bounded in-process L1 (Caffeine) in front of a shared L2 (Redis).
+ * Writes go to both tiers and are announced to other nodes so they drop their L1 copy.
+ * Values are wrapped in a {@link CachedValue} so every node knows when an entry was written.
+ * <p>
+ * Entries are fresh for the remote TTL (soft TTL) and may be served stale, while being refreshed in the
+ * background, until the hard TTL; only then do callers wait for the loader again.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> local;
+    private final Cache remote;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final Duration remoteTtl;
+    private final Duration hardTtl;
+    private final double earlyExpirationBeta;
+    private final SingleFlight singleFlight;
+    private final Executor refreshExecutor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("cache-refresh-", 0).factory());
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Timer l1Latency;
+    private final Timer l2Latency;
+    private final Counter explicitEvictions;
+    private final Counter staleRefreshes;
+    private final Counter failedStaleRefreshes;
+
+    public TwoTierCache(
+            String name,
+            com.github.benmanes.caffeine.cache.Cache<Object, Object> local,
+            Cache remote,
+            CacheInvalidationPublisher invalidationPublisher,
+            Duration remoteTtl,
+            Duration hardTtl,
+            double earlyExpirationBeta,
+            Duration loadTimeout,
+            MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.remoteTtl = remoteTtl;
+        this.hardTtl = hardTtl.compareTo(remoteTtl) > 0 ? hardTtl : remoteTtl;
+        this.earlyExpirationBeta = earlyExpirationBeta;
+        this.singleFlight = new SingleFlight(loadTimeout);
+
+        this.l1Hits = tierCounter(meterRegistry, "l1", "hit");
+        this.l1Misses = tierCounter(meterRegistry, "l1", "miss");
+        this.l2Hits = tierCounter(meterRegistry, "l2", "hit");
+        this.l2Misses = tierCounter(meterRegistry, "l2", "miss");
+        this.l1Latency = tierTimer(meterRegistry, "l1");
+        this.l2Latency = tierTimer(meterRegistry, "l2");
+        this.explicitEvictions = evictionCounter(meterRegistry, name, "explicit");
+        this.staleRefreshes = staleRefreshCounter(meterRegistry, "success");
+        this.failedStaleRefreshes = staleRefreshCounter(meterRegistry, "failure");
+
+        Gauge.builder("cache.tier.hit.ratio", this, c -> ratio(c.l1Hits, c.l1Misses))
+            .tags("cache", name, "tier", "l1")
+            .register(meterRegistry);
+        Gauge.builder("cache.tier.hit.ratio", this, c -> ratio(c.l2Hits, c.l2Misses))
+            .tags("cache", name, "tier", "l2")
+            .register(meterRegistry);
+        Gauge.builder("cache.tier.size", local, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+            .tags("cache", name, "tier", "l1")
+            .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    // Plain gets only see fresh values; stale ones are served through getEntry and get(key, loader)
+    @Override
+    public ValueWrapper get(Object key) {
+        CachedValue entry = lookup(key);
+        return entry != null && !isStale(entry) ? new SimpleValueWrapper(entry.getValue()) : null;
+    }
+
+    /**
+     * Entry for {@code key} up to its hard TTL, stale or not, or {@code null}.
+     */
+    public CachedValue getEntry(Object key) {
+        return lookup(key);
+    }
+
+    /**
+     * L1-only lookup of fresh values that never touches Redis, safe to call from event-loop threads.
+     */
+    public ValueWrapper getLocal(Object key) {
+        CachedValue entry = (CachedValue) local.getIfPresent(localKey(key));
+        if (entry == null || isStale(entry)) {
+            return null;
+        }
+        l1Hits.increment();
+        return new SimpleValueWrapper(entry.getValue());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    /**
+     * Used by {@code @Cacheable(sync = true)}. Stale entries are returned at once and refreshed in the
+     * background; see {@link #getEntry(Object, Callable)} for everything else.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CachedValue entry = getEntry(key, valueLoader);
+        if (isStale(entry)) {
+            refreshInBackground(key, valueLoader);
+        }
+        return (T) entry.getValue();
+    }
+
+    /**
+     * Misses are loaded once per key on this node, and entries close to expiry are refreshed early with a
+     * probability that grows as expiry approaches (XFetch), so a hot key is reloaded by a single caller
+     * before it goes stale. Stale entries are returned as they are; whether and how to refresh them is up
+     * to the caller (see {@link #refreshInBackground}).
+     */
+    public CachedValue getEntry(Object key, Callable<?> valueLoader) {
+        CachedValue entry = lookup(key);
+        if (entry != null && (isStale(entry) || !shouldRefreshEarly(entry))) {
+            return entry;
+        }
+
+        if (entry != null) {
+            // Early refresh: somebody is already on it, or we do it ourselves but keep the valid value on failure
+            if (singleFlight.isInFlight(localKey(key))) {
+                return entry;
+            }
+            try {
+                return (CachedValue) singleFlight.execute(localKey(key), () -> load(key, valueLoader));
+            } catch (Exception e) {
+                log.warn("Early refresh of {} in cache {} failed: {}", key, name, e.getMessage());
+                return entry;
+            }
+        }
+
+        try {
+            return (CachedValue) singleFlight.execute(localKey(key), () -> loadUnlessFresh(key, valueLoader));
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    /**
+     * Reloads {@code key} on a virtual thread unless a load is already in flight. Failures only get
+     * logged: callers keep being served the stale value until it reaches the hard TTL.
+     */
+    public void refreshInBackground(Object key, Callable<?> valueLoader) {
+        if (singleFlight.isInFlight(localKey(key))) {
+            return;
+        }
+        refreshExecutor.execute(() -> {
+            try {
+                singleFlight.execute(localKey(key), () -> loadUnlessFresh(key, valueLoader));
+                staleRefreshes.increment();
+            } catch (Exception e) {
+                failedStaleRefreshes.increment();
+                log.warn("Refresh of stale {} in cache {} failed: {}", key, name, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Whether {@code entry} is past its soft TTL and should be refreshed.
+     */
+    public boolean isStale(CachedValue entry) {
+        return isStaleWithin(entry, Duration.ZERO);
+    }
+
+    /**
+     * Whether {@code entry} goes stale within {@code window} from now.
+     */
+    public boolean isStaleWithin(CachedValue entry, Duration window) {
+        return System.currentTimeMillis() + window.toMillis() >= entry.getWrittenAt() + remoteTtl.toMillis();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        store(key, value, 0);
+    }
+
+    /**
+     * Put recording how long the value took to load, which drives early expiration.
+     */
+    public void put(Object key, Object value, long loadMillis) {
+        store(key, value, loadMillis);
+    }
+
+    @Override
+    public void evict(Object key) {
+        explicitEvictions.increment();
+        remote.evict(key);
+        local.invalidate(localKey(key));
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        explicitEvictions.increment(local.estimatedSize());
+        remote.clear();
+        local.invalidateAll();
+        invalidationPublisher.publishClear(name);
+    }
+
+    // Fresh L1 entry, else the newer of the L1 and L2 entries as long as it is within the hard TTL
+    private CachedValue lookup(Object key) {
+        Object localKey = localKey(key);
+
+        long start = System.nanoTime();
+        CachedValue entry = (CachedValue) local.getIfPresent(localKey);
+        l1Latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (entry != null && !isStale(entry)) {
+            l1Hits.increment();
+            return entry;
+        }
+        l1Misses.increment();
+
+        start = System.nanoTime();
+        ValueWrapper wrapper = remote.get(key);
+        l2Latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (wrapper == null || wrapper.get() == null) {
+            l2Misses.increment();
+            return entry != null && !isExpired(entry) ? entry : null;
+        }
+        l2Hits.increment();
+
+        CachedValue remoteEntry = wrapper.get() instanceof CachedValue cached
+            ? cached
+            : new CachedValue(wrapper.get(), System.currentTimeMillis(), 0); // written before envelopes existed
+        if (entry == null || remoteEntry.getWrittenAt() >= entry.getWrittenAt()) {
+            entry = remoteEntry;
+            local.put(localKey, entry);
+        }
+        return !isExpired(entry) ? entry : null;
+    }
+
+    // A flight that finished just before ours may already have populated L1
+    private CachedValue loadUnlessFresh(Object key, Callable<?> valueLoader) throws Exception {
+        CachedValue loaded = (CachedValue) local.getIfPresent(localKey(key));
+        return loaded != null && !isStale(loaded) ? loaded : load(key, valueLoader);
+    }
+
+    private CachedValue load(Object key, Callable<?> valueLoader) throws Exception {
+        long start = System.currentTimeMillis();
+        Object value = valueLoader.call();
+        return store(key, value, System.currentTimeMillis() - start);
+    }
+
+    private CachedValue store(Object key, Object value, long loadMillis) {
+        CachedValue entry = new CachedValue(value, System.currentTimeMillis(), loadMillis);
+        // Redis does not cache nulls: a null load is a miss, and any older copy must not outlive it
+        if (value == null) {
+            remote.evict(key);
+            local.invalidate(localKey(key));
+            invalidationPublisher.publishEvict(name, localKey(key));
+            return entry;
+        }
+        remote.put(key, entry);
+        local.put(localKey(key), entry);
+        invalidationPublisher.publishEvict(name, localKey(key));
+        return entry;
+    }
+
+    // Past the hard TTL: too old to serve even as a stale value
+    private boolean isExpired(CachedValue entry) {
+        return System.currentTimeMillis() >= entry.getWrittenAt() + hardTtl.toMillis();
+    }
+
+    private boolean shouldRefreshEarly(CachedValue entry) {
+        double gap = entry.getLoadMillis() * earlyExpirationBeta * -Math.log(ThreadLocalRandom.current().nextDouble());
+        return System.currentTimeMillis() + gap >= entry.getWrittenAt() + remoteTtl.toMillis();
+    }
+
+    void evictLocal(String key) {
+        explicitEvictions.increment();
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        explicitEvictions.increment(local.estimatedSize());
+        local.invalidateAll();
+    }
+
+    // Redis keys are strings anyway; using the same form locally lets peers evict by the published key
+    private static Object localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private Counter tierCounter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+            .tags("cache", name, "tier", tier, "result", result)
+            .register(registry);
+    }
+
+    // L1 entries removed because of size or expiry (counted by the manager) or evicted explicitly
+    static Counter evictionCounter(MeterRegistry registry, String cache, String cause) {
+        return Counter.builder("cache.tier.evictions")
+            .tags("cache", cache, "tier", "l1", "cause", cause)
+            .register(registry);
+    }
+
+    private Counter staleRefreshCounter(MeterRegistry registry, String result) {
+        return Counter.builder("cache.stale.refreshes")
+            .tags("cache", name, "result", result)
+            .register(registry);
+    }
+
+    private Timer tierTimer(MeterRegistry registry, String tier) {
+        return Timer.builder("cache.tier.latency")
+            .tags("cache", name, "tier", tier)
+            .register(registry);
+    }
+
+    private static double ratio(Counter hits, Counter misses) {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
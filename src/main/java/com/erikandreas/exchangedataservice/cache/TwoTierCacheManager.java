@@ -0,0 +1,104 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps every cache of the remote (Redis) cache manager in a {@link TwoTierCache} and applies
+ * invalidations received from other nodes to the local tier.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager remoteCacheManager;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final MeterRegistry meterRegistry;
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final Duration remoteTtl;
+    private final Duration hardTtl;
+    private final double earlyExpirationBeta;
+    private final Duration loadTimeout;
+
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(
+            CacheManager remoteCacheManager,
+            CacheInvalidationPublisher invalidationPublisher,
+            MeterRegistry meterRegistry,
+            long localMaxSize,
+            Duration localTtl,
+            Duration remoteTtl,
+            Duration hardTtl,
+            double earlyExpirationBeta,
+            Duration loadTimeout) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.invalidationPublisher = invalidationPublisher;
+        this.meterRegistry = meterRegistry;
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.remoteTtl = remoteTtl;
+        this.hardTtl = hardTtl;
+        this.earlyExpirationBeta = earlyExpirationBeta;
+        this.loadTimeout = loadTimeout;
+    }
+
+    @Override
+    public TwoTierCache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoTierCache createCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+        Counter sizeEvictions = TwoTierCache.evictionCounter(meterRegistry, name, "size");
+        Counter expirations = TwoTierCache.evictionCounter(meterRegistry, name, "expired");
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+            .maximumSize(localMaxSize)
+            .expireAfterWrite(localTtl)
+            .evictionListener((key, value, cause) -> (cause == RemovalCause.SIZE ? sizeEvictions : expirations).increment())
+            .build();
+        return new TwoTierCache(
+            name, local, remote, invalidationPublisher, remoteTtl, hardTtl, earlyExpirationBeta, loadTimeout, meterRegistry);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || parts[1].equals(invalidationPublisher.getNodeId())) {
+            return;
+        }
+
+        TwoTierCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+
+        switch (parts[0]) {
+            case CacheInvalidationPublisher.EVICT -> cache.evictLocal(parts[3]);
+            case CacheInvalidationPublisher.CLEAR -> cache.clearLocal();
+            default -> log.warn("Ignoring unknown cache invalidation message: {}", parts[0]);
+        }
+    }
+}
@@ -1,31 +1,58 @@
 package com.erikandreas.exchangedataservice.config;
 
-import io.github.bucket4j.Bandwidth;
-import io.github.bucket4j.Bucket;
+import com.erikandreas.exchangedataservice.ratelimit.ExchangeRateLimiter;
+import com.erikandreas.exchangedataservice.ratelimit.LocalTokenBucket;
+import com.erikandreas.exchangedataservice.ratelimit.RedisTokenBucket;
+import com.erikandreas.exchangedataservice.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import java.time.Duration;
 
 @Configuration
 public class RateLimitConfig {
 
+    @Value("${rate-limit.mode:redis}")
+    private String mode;
+
+    @Value("${rate-limit.prefetch-ttl:1s}")
+    private Duration prefetchTtl;
+
     @Bean
-    public Bucket binanceBucket() {
-        // Binance allows 1200 requests per minute
-        Bandwidth limit = Bandwidth.simple(20, Duration.ofMinutes(1));
-        return Bucket
-                .builder()
-                .addLimit(limit)
-                .build();
+    public ExchangeRateLimiter binanceRateLimiter(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${rate-limit.binance.quota:6000}") long quota,
+            @Value("${rate-limit.binance.period:1m}") Duration period,
+            @Value("${rate-limit.binance.prefetch:20}") long prefetch,
+            @Value("${rate-limit.binance.used-weight-header:X-MBX-USED-WEIGHT-1M}") String usedWeightHeader) {
+        TokenBucket bucket = tokenBucket("binance", quota, period, prefetch, redisTemplate);
+        return new ExchangeRateLimiter("binance", bucket, quota, period, usedWeightHeader, meterRegistry);
     }
 
     @Bean
-    public Bucket krakenBucket() {
-        // Kraken allows 1 request per second
-        Bandwidth limit = Bandwidth.simple(1, Duration.ofSeconds(1));
-        return Bucket.builder()
-            .addLimit(limit)
-            .build();
+    public ExchangeRateLimiter krakenRateLimiter(
+            StringRedisTemplate redisTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${rate-limit.kraken.quota:1}") long quota,
+            @Value("${rate-limit.kraken.period:1s}") Duration period,
+            @Value("${rate-limit.kraken.prefetch:1}") long prefetch) {
+        // Kraken does not report usage for public endpoints; only throttling responses adjust the limit
+        TokenBucket bucket = tokenBucket("kraken", quota, period, prefetch, redisTemplate);
+        return new ExchangeRateLimiter("kraken", bucket, quota, period, null, meterRegistry);
+    }
+
+    // In redis mode the in-memory bucket is only used while Redis is unreachable
+    private TokenBucket tokenBucket(
+            String exchange, long capacity, Duration period, long prefetch, StringRedisTemplate redisTemplate) {
+        TokenBucket local = new LocalTokenBucket(capacity, period);
+        if (!"redis".equalsIgnoreCase(mode)) {
+            return local;
+        }
+        return new RedisTokenBucket(
+            redisTemplate, "ratelimit:" + exchange, capacity, period, prefetch, prefetchTtl, local);
     }
 }
@@ -1,15 +1,26 @@
 package com.erikandreas.exchangedataservice.config;
 
+import com.erikandreas.exchangedataservice.cache.CacheInvalidationPublisher;
+import com.erikandreas.exchangedataservice.cache.CacheInvalidationSubscriber;
+import com.erikandreas.exchangedataservice.cache.CompactRedisSerializer;
+import com.erikandreas.exchangedataservice.cache.TwoTierCacheManager;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -20,6 +31,30 @@ import java.time.Duration;
 @EnableCaching
 public class RedisConfig {
 
+    @Value("${cache.l1.max-size:10000}")
+    private long l1MaxSize;
+
+    @Value("${cache.l1.ttl:10s}")
+    private Duration l1Ttl;
+
+    @Value("${cache.l2.ttl:1m}")
+    private Duration l2Ttl;
+
+    @Value("${cache.l2.hard-ttl:10m}")
+    private Duration l2HardTtl;
+
+    @Value("${cache.early-expiration.beta:1.0}")
+    private double earlyExpirationBeta;
+
+    @Value("${cache.load-timeout:5s}")
+    private Duration loadTimeout;
+
+    @Value("${cache.invalidation.channel:cache:invalidation}")
+    private String invalidationChannel;
+
+    @Value("${cache.serialization.format:compact}")
+    private String serializationFormat;
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -33,14 +68,34 @@ public class RedisConfig {
         return mapper;
     }
 
+    // Reads both binary and JSON values; "json" keeps writing JSON while nodes are being migrated
+    @Bean
+    public CompactRedisSerializer redisValueSerializer(ObjectMapper objectMapper) {
+        return new CompactRedisSerializer(
+            new GenericJackson2JsonRedisSerializer(objectMapper),
+            "compact".equalsIgnoreCase(serializationFormat));
+    }
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory, ObjectMapper objectMapper) {
-        GenericJackson2JsonRedisSerializer serializer = new GenericJackson2JsonRedisSerializer(objectMapper);
+    public RedisTemplate<String, Object> priceRedisTemplate(
+            RedisConnectionFactory connectionFactory,
+            CompactRedisSerializer redisValueSerializer) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(redisValueSerializer);
+        return template;
+    }
 
+    @Bean
+    public RedisCacheManager redisCacheManager(
+            RedisConnectionFactory connectionFactory,
+            CompactRedisSerializer redisValueSerializer) {
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-            .entryTtl(Duration.ofMinutes(1))
+            // Redis keeps entries until the hard TTL so they can still be served stale
+            .entryTtl(l2HardTtl.compareTo(l2Ttl) > 0 ? l2HardTtl : l2Ttl)
             .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
-            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(serializer))
+            .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer))
             .disableCachingNullValues();
 
         return RedisCacheManager.builder(connectionFactory)
@@ -48,4 +103,38 @@ public class RedisConfig {
             .transactionAware()
             .build();
     }
-}
\ No newline at end of file
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate redisTemplate) {
+        return new CacheInvalidationPublisher(redisTemplate, invalidationChannel);
+    }
+
+    @Bean
+    @Primary
+    public TwoTierCacheManager cacheManager(
+            RedisCacheManager redisCacheManager,
+            CacheInvalidationPublisher invalidationPublisher,
+            MeterRegistry meterRegistry) {
+        return new TwoTierCacheManager(
+            redisCacheManager,
+            invalidationPublisher,
+            meterRegistry,
+            l1MaxSize,
+            l1Ttl,
+            l2Ttl,
+            l2HardTtl,
+            earlyExpirationBeta,
+            loadTimeout);
+    }
+
+    @Bean
+    public CacheInvalidationSubscriber cacheInvalidationSubscriber(
+            RedisConnectionFactory connectionFactory,
+            TwoTierCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        container.afterPropertiesSet();
+        return new CacheInvalidationSubscriber(container, Duration.ofSeconds(5));
+    }
+}
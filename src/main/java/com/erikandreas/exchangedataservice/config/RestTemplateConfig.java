@@ -0,0 +1,148 @@
+package com.erikandreas.exchangedataservice.config;
+
+import com.erikandreas.exchangedataservice.service.RateLimitService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.time.Duration;
+import javax.net.ssl.SSLSocket;
+
+/**
+ * One pooled Apache HttpClient shared by the blocking services, with a RestTemplate per exchange on top.
+ * Connections are kept alive and reused across requests; the pool size, connects and timeouts are
+ * bounded so that a slow exchange fails fast instead of piling up waiting callers.
+ */
+@Configuration
+public class RestTemplateConfig {
+
+    @Value("${exchange.binance.base-url}")
+    private String binanceBaseUrl;
+
+    @Value("${exchange.kraken.base-url}")
+    private String krakenBaseUrl;
+
+    private final Counter connectionsOpened;
+    private final Counter requestsSent;
+
+    public RestTemplateConfig(MeterRegistry meterRegistry) {
+        this.connectionsOpened = Counter.builder("http.client.connections.opened")
+            .description("Connections opened to the exchanges")
+            .register(meterRegistry);
+        this.requestsSent = Counter.builder("http.client.connections.requests")
+            .description("Requests sent over pooled exchange connections")
+            .register(meterRegistry);
+        Gauge.builder("http.client.connections.reuse.ratio", this, RestTemplateConfig::reuseRatio)
+            .description("Share of requests sent over an already open connection")
+            .register(meterRegistry);
+    }
+
+    @Bean
+    public PoolingHttpClientConnectionManager exchangeConnectionManager(
+            @Value("${exchange.http.max-connections:200}") int maxConnections,
+            @Value("${exchange.http.max-connections-per-route:100}") int maxConnectionsPerRoute,
+            @Value("${exchange.http.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${exchange.http.time-to-live:5m}") Duration timeToLive,
+            MeterRegistry meterRegistry) {
+
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(connectTimeout))
+                .setTimeToLive(TimeValue.of(timeToLive))
+                .build())
+            .setConnectionFactory(countingConnectionFactory(connectionsOpened))
+            .build();
+
+        new PoolingHttpClientConnectionManagerMetricsBinder(connectionManager, "exchanges").bindTo(meterRegistry);
+        return connectionManager;
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient exchangeHttpClient(
+            PoolingHttpClientConnectionManager exchangeConnectionManager,
+            @Value("${exchange.http.response-timeout:5s}") Duration responseTimeout,
+            @Value("${exchange.http.connection-request-timeout:2s}") Duration connectionRequestTimeout,
+            @Value("${exchange.http.idle-timeout:30s}") Duration idleTimeout) {
+        return HttpClients.custom()
+            .setConnectionManager(exchangeConnectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setResponseTimeout(Timeout.of(responseTimeout))
+                .setConnectionRequestTimeout(Timeout.of(connectionRequestTimeout))
+                .build())
+            .addRequestInterceptorFirst((request, entity, context) -> requestsSent.increment())
+            .evictIdleConnections(TimeValue.of(idleTimeout))
+            .evictExpiredConnections()
+            .build();
+    }
+
+    @Bean
+    public RestTemplate binanceRestTemplate(
+            RestTemplateBuilder builder, CloseableHttpClient exchangeHttpClient, RateLimitService rateLimitService) {
+        return restTemplate(builder, exchangeHttpClient, binanceBaseUrl, "binance", rateLimitService);
+    }
+
+    @Bean
+    public RestTemplate krakenRestTemplate(
+            RestTemplateBuilder builder, CloseableHttpClient exchangeHttpClient, RateLimitService rateLimitService) {
+        return restTemplate(builder, exchangeHttpClient, krakenBaseUrl, "kraken", rateLimitService);
+    }
+
+    // Every response, errors included, reports the exchange's view of our usage to the rate limiter
+    private static RestTemplate restTemplate(
+            RestTemplateBuilder builder, CloseableHttpClient httpClient, String baseUrl, String exchange,
+            RateLimitService rateLimitService) {
+        return builder
+            .rootUri(baseUrl)
+            .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+            .additionalInterceptors((request, body, execution) -> {
+                ClientHttpResponse response = execution.execute(request, body);
+                rateLimitService.recordResponse(exchange, response.getStatusCode().value(), response.getHeaders());
+                return response;
+            })
+            .build();
+    }
+
+    private static HttpConnectionFactory<ManagedHttpClientConnection> countingConnectionFactory(Counter opened) {
+        return new HttpConnectionFactory<>() {
+            @Override
+            public ManagedHttpClientConnection createConnection(Socket socket) throws IOException {
+                opened.increment();
+                return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+            }
+
+            @Override
+            public ManagedHttpClientConnection createConnection(SSLSocket sslSocket, Socket socket) throws IOException {
+                opened.increment();
+                return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(sslSocket, socket);
+            }
+        };
+    }
+
+    private double reuseRatio() {
+        double requests = requestsSent.count();
+        return requests == 0 ? 0 : Math.max(0, 1 - connectionsOpened.count() / requests);
+    }
+}
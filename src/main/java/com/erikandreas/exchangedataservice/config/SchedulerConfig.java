@@ -1,29 +1,30 @@
 package com.erikandreas.exchangedataservice.config;
 
-import com.erikandreas.exchangedataservice.service.DailyAveragePriceService;
+import com.erikandreas.exchangedataservice.service.DailyAverageUpdateService;
+import com.erikandreas.exchangedataservice.service.HotPriceRefreshService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 
-import java.util.List;
-
+// The sampling jobs; symbol metadata is loaded by SymbolMetadataLoader whether or not these run
 @Configuration
-@EnableScheduling
+@ConditionalOnProperty(name = "exchange.scheduler.enabled", matchIfMissing = true)
 public class SchedulerConfig {
 
     @Autowired
-    private DailyAveragePriceService averagePriceService;
+    private DailyAverageUpdateService averageUpdateService;
 
-    private static final List<String> SYMBOLS = List.of("BTCUSDT", "ETHUSDT");
-    private static final List<String> EXCHANGES = List.of("binance", "kraken");
+    @Autowired
+    private HotPriceRefreshService hotPriceRefreshService;
 
     @Scheduled(fixedRate = 300000) // Every 5 minutes
     public void updateAverages() {
-        for (String exchange : EXCHANGES) {
-            for (String symbol : SYMBOLS) {
-                averagePriceService.updateDailyAverage(exchange, symbol);
-            }
-        }
+        averageUpdateService.updateAll();
+    }
+
+    @Scheduled(fixedDelayString = "${cache.refresh-ahead.interval:5s}")
+    public void refreshHotPrices() {
+        hotPriceRefreshService.refreshHotPrices();
     }
-}
\ No newline at end of file
+}
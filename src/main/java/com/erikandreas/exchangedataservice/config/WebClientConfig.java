@@ -1,12 +1,30 @@
 package com.erikandreas.exchangedataservice.config;
 
+import com.erikandreas.exchangedataservice.service.RateLimitService;
+import io.netty.channel.ChannelOption;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.time.Duration;
+
+/**
+ * WebClients for the exchanges, each on its own Reactor Netty connection pool so a burst against one
+ * exchange cannot starve the other. Pools are bounded (connections and queued acquires), evict idle and
+ * old connections, and publish their metrics under {@code reactor.netty.connection.provider.*} tagged
+ * with the exchange name.
+ */
 @Configuration
 public class WebClientConfig {
 
@@ -16,19 +34,90 @@ public class WebClientConfig {
     @Value("${exchange.kraken.base-url}")
     private String krakenBaseUrl;
 
+    @Value("${exchange.webclient.max-connections:100}")
+    private int maxConnections;
+
+    @Value("${exchange.webclient.pending-acquire-max-count:500}")
+    private int pendingAcquireMaxCount;
+
+    @Value("${exchange.webclient.pending-acquire-timeout:2s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${exchange.webclient.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${exchange.webclient.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${exchange.webclient.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${exchange.webclient.response-timeout:5s}")
+    private Duration responseTimeout;
+
+    @Value("${exchange.webclient.http2:false}")
+    private boolean http2;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider binanceConnectionProvider() {
+        return connectionProvider("binance");
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider krakenConnectionProvider() {
+        return connectionProvider("kraken");
+    }
+
     @Bean
-    public WebClient binanceWebClient() {
-        return WebClient.builder()
-            .baseUrl(binanceBaseUrl)
-            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-            .build();
+    public WebClient binanceWebClient(
+            WebClient.Builder builder, ConnectionProvider binanceConnectionProvider, RateLimitService rateLimitService) {
+        return webClient(builder, binanceConnectionProvider, binanceBaseUrl, "binance", rateLimitService);
+    }
+
+    @Bean
+    public WebClient krakenWebClient(
+            WebClient.Builder builder, ConnectionProvider krakenConnectionProvider, RateLimitService rateLimitService) {
+        return webClient(builder, krakenConnectionProvider, krakenBaseUrl, "kraken", rateLimitService);
     }
 
     @Bean
-    public WebClient krakenWebClient() {
-        return WebClient.builder()
-            .baseUrl(krakenBaseUrl)
+    public WebSocketClient tickerWebSocketClient() {
+        return new ReactorNettyWebSocketClient();
+    }
+
+    private ConnectionProvider connectionProvider(String exchange) {
+        return ConnectionProvider.builder(exchange)
+            .maxConnections(maxConnections)
+            .pendingAcquireMaxCount(pendingAcquireMaxCount)
+            .pendingAcquireTimeout(pendingAcquireTimeout)
+            .maxIdleTime(maxIdleTime)
+            .maxLifeTime(maxLifeTime)
+            .evictInBackground(maxIdleTime)
+            .metrics(true)
+            .build();
+    }
+
+    // The builder is Boot's prototype, so upstream calls are recorded as http.client.requests. Every
+    // response reports the exchange's view of our usage to the rate limiter.
+    private WebClient webClient(
+            WebClient.Builder builder, ConnectionProvider connectionProvider, String baseUrl, String exchange,
+            RateLimitService rateLimitService) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+            .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+            .responseTimeout(responseTimeout);
+        if (http2) {
+            // Negotiated via ALPN; exchanges that only speak HTTP/1.1 keep working over the same pool
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+
+        return builder
+            .baseUrl(baseUrl)
+            .clientConnector(new ReactorClientHttpConnector(httpClient))
+            .filter(ExchangeFilterFunction.ofResponseProcessor(response -> {
+                rateLimitService.recordResponse(exchange, response.statusCode().value(), response.headers().asHttpHeaders());
+                return Mono.just(response);
+            }))
             .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
             .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,23 @@
+package com.erikandreas.exchangedataservice.config;
+
+import com.erikandreas.exchangedataservice.controller.PriceWebSocketHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final PriceWebSocketHandler priceWebSocketHandler;
+
+    public WebSocketConfig(PriceWebSocketHandler priceWebSocketHandler) {
+        this.priceWebSocketHandler = priceWebSocketHandler;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(priceWebSocketHandler, "/api/prices/ws").setAllowedOrigins("*");
+    }
+}
@@ -1,10 +1,22 @@
 package com.erikandreas.exchangedataservice.controller;
 
+import com.erikandreas.exchangedataservice.cache.HotKeyTracker;
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.exception.InvalidSymbolException;
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import com.erikandreas.exchangedataservice.model.BarInterval;
+import com.erikandreas.exchangedataservice.model.ConsolidatedPrice;
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.DailyAverageSeries;
 import com.erikandreas.exchangedataservice.model.DailyPriceAverage;
+import com.erikandreas.exchangedataservice.model.PriceBar;
 import com.erikandreas.exchangedataservice.service.*;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,15 +25,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.ErrorResponse;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/prices")
@@ -29,16 +47,35 @@ import java.util.Map;
 @Slf4j
 public class PriceController {
 
+    private static final int MAX_SYMBOLS_PER_REQUEST = 100;
+    private static final int MAX_DAILY_AVERAGE_RANGE_DAYS = 366;
+    private static final Duration SSE_HEARTBEAT_INTERVAL = Duration.ofSeconds(15);
+
     private final Map<String, BlockingPriceService> blockingServices;
     private final Map<String, ReactivePriceService> reactiveServices;
     private final DailyAveragePriceService averagePriceService;
+    private final PriceStreamService priceStreamService;
+    private final PriceBarService priceBarService;
+    private final ConsolidatedPriceService consolidatedPriceService;
+    private final SymbolIndex symbolIndex;
+    private final HotKeyTracker hotKeys;
+    private final MeterRegistry meterRegistry;
 
     public PriceController(
             BinanceRestTemplateService binanceBlockingService,
             KrakenRestTemplateService krakenBlockingService,
             BinanceWebClientService binanceReactiveService,
-            KrakenWebClientService krakenReactiveService, DailyAveragePriceService averagePriceService) {
+            KrakenWebClientService krakenReactiveService, DailyAveragePriceService averagePriceService,
+            PriceStreamService priceStreamService, PriceBarService priceBarService,
+            ConsolidatedPriceService consolidatedPriceService, SymbolIndex symbolIndex, HotKeyTracker hotKeys,
+            MeterRegistry meterRegistry) {
         this.averagePriceService = averagePriceService;
+        this.meterRegistry = meterRegistry;
+        this.priceStreamService = priceStreamService;
+        this.priceBarService = priceBarService;
+        this.consolidatedPriceService = consolidatedPriceService;
+        this.symbolIndex = symbolIndex;
+        this.hotKeys = hotKeys;
 
         this.blockingServices = Map.of(
                 "binance", binanceBlockingService,
@@ -118,7 +155,9 @@ public class PriceController {
         if (service == null) {
             throw new IllegalArgumentException("Unsupported exchange: " + exchange);
         }
-        return service.getPrice(symbol);
+        String canonical = symbolIndex.canonical(exchange.toLowerCase(), symbol);
+        hotKeys.record(exchange.toLowerCase(), canonical);
+        return timed(exchange, "blocking", "single", () -> service.getPrice(canonical));
     }
 
     @Operation(
@@ -165,7 +204,176 @@ public class PriceController {
         if (service == null) {
             return Mono.error(new IllegalArgumentException("Unsupported exchange: " + exchange));
         }
-        return service.getPrice(symbol);
+        return Mono.fromCallable(() -> symbolIndex.canonical(exchange.toLowerCase(), symbol))
+                .doOnNext(canonical -> hotKeys.record(exchange.toLowerCase(), canonical))
+                .flatMap(canonical -> timed(exchange, "reactive", "single", service.getPrice(canonical)));
+    }
+
+    @Operation(
+            summary = "Get prices for multiple symbols (blocking)",
+            description = "Returns prices for a comma-separated list of symbols. Cached symbols are served locally " +
+                    "and all missing ones are fetched from the exchange in a single request."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved prices",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = CryptoPrice.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Rate limit exceeded",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Exchange service unavailable",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/blocking/{exchange}")
+    public List<CryptoPrice> getPrices(
+            @Parameter(
+                    description = "Exchange name",
+                    example = "binance",
+                    schema = @Schema(allowableValues = {"binance", "kraken"})
+            )
+            @PathVariable String exchange,
+            @Parameter(
+                    description = "Comma-separated trading symbols",
+                    example = "BTCUSDT,ETHUSDT"
+            )
+            @RequestParam List<String> symbols) {
+        BlockingPriceService service = blockingServices.get(exchange.toLowerCase());
+        if (service == null) {
+            throw new IllegalArgumentException("Unsupported exchange: " + exchange);
+        }
+        List<String> normalized = canonicalSymbols(exchange.toLowerCase(), symbols);
+        normalized.forEach(symbol -> hotKeys.record(exchange.toLowerCase(), symbol));
+        return timed(exchange, "blocking", "batch", () -> service.getPrices(normalized));
+    }
+
+    @Operation(
+            summary = "Get prices for multiple symbols (reactive)",
+            description = "Non-blocking variant of the multi-symbol endpoint. Missing symbols are fetched " +
+                    "from the exchange in a single request."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successfully retrieved prices",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = CryptoPrice.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid input",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "429",
+                    description = "Rate limit exceeded",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Exchange service unavailable",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/reactive/{exchange}")
+    public Mono<List<CryptoPrice>> getPricesReactive(
+            @Parameter(
+                    description = "Exchange name",
+                    example = "binance",
+                    schema = @Schema(allowableValues = {"binance", "kraken"})
+            )
+            @PathVariable String exchange,
+            @Parameter(
+                    description = "Comma-separated trading symbols",
+                    example = "BTCUSDT,ETHUSDT"
+            )
+            @RequestParam List<String> symbols) {
+        ReactivePriceService service = reactiveServices.get(exchange.toLowerCase());
+        if (service == null) {
+            return Mono.error(new IllegalArgumentException("Unsupported exchange: " + exchange));
+        }
+        return Mono.fromCallable(() -> canonicalSymbols(exchange.toLowerCase(), symbols))
+                .doOnNext(normalized -> normalized.forEach(symbol -> hotKeys.record(exchange.toLowerCase(), symbol)))
+                .flatMap(normalized -> timed(exchange, "reactive", "batch", service.getPrices(normalized)));
+    }
+
+    @Operation(
+            summary = "Get a symbol's price across all exchanges",
+            description = "Queries every exchange in parallel and consolidates the prices that arrive within the " +
+                    "per-exchange deadline: median, min/max spread and best bid/ask, with the exchanges that " +
+                    "contributed. Exchanges that fail or are too slow are listed as missing instead of " +
+                    "delaying the response."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Consolidated price of at least one exchange",
+                    content = @Content(schema = @Schema(implementation = ConsolidatedPrice.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Symbol not listed on any exchange",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "No exchange returned a price in time",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/consolidated/{symbol}")
+    public Mono<ConsolidatedPrice> getConsolidatedPrice(
+            @Parameter(
+                    description = "Trading symbol (e.g., BTCUSDT for Bitcoin/USDT pair)",
+                    example = "BTCUSDT"
+            )
+            @PathVariable String symbol) {
+        String canonical = symbol.trim().toUpperCase();
+        consolidatedPriceService.getExchanges().stream()
+                .filter(exchange -> symbolIndex.isListed(exchange, canonical))
+                .forEach(exchange -> hotKeys.record(exchange, canonical));
+        return timed("all", "reactive", "consolidated", consolidatedPriceService.getConsolidatedPrice(canonical));
+    }
+
+    @Operation(
+            summary = "Stream live prices (Server-Sent Events)",
+            description = "Pushes a price event whenever the price of one of the subscribed exchange:symbol pairs " +
+                    "changes. All subscribers of a pair share one upstream refresh; slow consumers only receive " +
+                    "the latest price. A WebSocket variant is available at /api/prices/ws."
+    )
+    @ApiResponse(
+            responseCode = "200",
+            description = "Event stream of price updates",
+            content = @Content(
+                    mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                    schema = @Schema(implementation = CryptoPrice.class)
+            )
+    )
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<CryptoPrice>> streamPrices(
+            @Parameter(
+                    description = "Comma-separated exchange:symbol pairs",
+                    example = "binance:BTCUSDT,kraken:ETHUSDT"
+            )
+            @RequestParam List<String> pairs) {
+        Flux<ServerSentEvent<CryptoPrice>> prices = priceStreamService.subscribe(pairs, "sse")
+                .map(price -> ServerSentEvent.builder(price)
+                        .event("price")
+                        .id(price.getExchange().toLowerCase() + ":" + price.getSymbol())
+                        .build());
+        Flux<ServerSentEvent<CryptoPrice>> heartbeats = Flux.interval(SSE_HEARTBEAT_INTERVAL)
+                .map(tick -> ServerSentEvent.<CryptoPrice>builder().comment("heartbeat").build());
+        return prices.mergeWith(heartbeats);
     }
 
     @Operation(
@@ -214,4 +422,188 @@ public class PriceController {
 
         return ResponseEntity.ok(avg);
     }
-}
\ No newline at end of file
+
+    @Operation(
+            summary = "Get daily average prices over a date range",
+            description = "Returns one point per day between from and to (inclusive, at most " +
+                    MAX_DAILY_AVERAGE_RANGE_DAYS + " days). Days without recorded prices are included " +
+                    "without an average."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Daily averages in the requested range",
+                    content = @Content(schema = @Schema(implementation = DailyAverageSeries.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unsupported exchange or an invalid range",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/{exchange}/{symbol}/daily-average/range")
+    public DailyAverageSeries getDailyAverageRange(
+            @Parameter(description = "Exchange name (binance or kraken)", example = "binance")
+            @PathVariable String exchange,
+            @Parameter(description = "Trading symbol", example = "BTCUSDT")
+            @PathVariable String symbol,
+            @Parameter(description = "First day of the range", example = "2024-02-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the range (defaults to today)", example = "2024-02-29")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        return getDailyAverageRanges(exchange, List.of(symbol), from, to).get(0);
+    }
+
+    @Operation(
+            summary = "Get daily average prices of multiple symbols over a date range",
+            description = "Multi-symbol variant of the date-range endpoint; all days of all symbols are read " +
+                    "from Redis in a single round trip."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "One series per symbol, in request order",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = DailyAverageSeries.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unsupported exchange, too many symbols or an invalid range",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/{exchange}/daily-average/range")
+    public List<DailyAverageSeries> getDailyAverageRanges(
+            @Parameter(description = "Exchange name (binance or kraken)", example = "binance")
+            @PathVariable String exchange,
+            @Parameter(description = "Comma-separated trading symbols", example = "BTCUSDT,ETHUSDT")
+            @RequestParam List<String> symbols,
+            @Parameter(description = "First day of the range", example = "2024-02-01")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the range (defaults to today)", example = "2024-02-29")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+
+        String exchangeName = exchange.toLowerCase();
+        if (!blockingServices.containsKey(exchangeName)) {
+            throw new IllegalArgumentException("Unsupported exchange: " + exchange);
+        }
+        LocalDate end = to != null ? to : LocalDate.now();
+        if (from.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (from.plusDays(MAX_DAILY_AVERAGE_RANGE_DAYS).isBefore(end.plusDays(1))) {
+            throw new IllegalArgumentException("At most " + MAX_DAILY_AVERAGE_RANGE_DAYS + " days per request are supported");
+        }
+
+        List<String> normalized = normalizeSymbols(symbols).stream().map(String::toUpperCase).distinct().toList();
+        return averagePriceService.getDailyAverages(exchangeName, normalized, from, end);
+    }
+
+    @Operation(
+            summary = "Get intraday OHLC bars",
+            description = "Returns open-high-low-close bars built server-side from every price fetched from the " +
+                    "exchange, oldest first. Bars with no observed prices are omitted. Bars are streamed as " +
+                    "application/x-ndjson while they are read; request application/json for a single array."
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Bars in the requested range",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = PriceBar.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Unsupported exchange or interval, or an invalid range",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping(value = "/{exchange}/{symbol}/bars", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PriceBar> getBars(
+            @Parameter(description = "Exchange name (binance or kraken)", example = "binance")
+            @PathVariable String exchange,
+            @Parameter(description = "Trading symbol", example = "BTCUSDT")
+            @PathVariable String symbol,
+            @Parameter(description = "Bar interval: 1m, 5m or 1h", example = "1m")
+            @RequestParam(defaultValue = "1m") String interval,
+            @Parameter(description = "Start of the range (defaults to 24 hours before the end)", example = "2024-02-13T00:00:00")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the range (defaults to now)", example = "2024-02-13T12:00:00")
+            @RequestParam(required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+
+        String exchangeName = exchange.toLowerCase();
+        if (!blockingServices.containsKey(exchangeName)) {
+            throw new IllegalArgumentException("Unsupported exchange: " + exchange);
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        return priceBarService.getBars(exchangeName, symbol.toUpperCase(), BarInterval.fromCode(interval), start, end);
+    }
+
+    private <T> T timed(String exchange, String stack, String operation, Supplier<T> request) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            T result = request.get();
+            sample.stop(requestTimer(exchange, stack, operation, "success"));
+            return result;
+        } catch (RuntimeException e) {
+            sample.stop(requestTimer(exchange, stack, operation, outcome(e)));
+            throw e;
+        }
+    }
+
+    private <T> Mono<T> timed(String exchange, String stack, String operation, Mono<T> request) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return request
+                    .doOnSuccess(result -> sample.stop(requestTimer(exchange, stack, operation, "success")))
+                    .doOnError(e -> sample.stop(requestTimer(exchange, stack, operation, outcome(e))));
+        });
+    }
+
+    // Only called for supported exchanges, so the tags stay low-cardinality
+    private Timer requestTimer(String exchange, String stack, String operation, String outcome) {
+        return Timer.builder("price.requests")
+                .description("Price requests as seen by the controller, including cache and upstream time")
+                .tags("exchange", exchange.toLowerCase(), "stack", stack, "operation", operation, "outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String outcome(Throwable e) {
+        if (e instanceof RateLimitExceededException) {
+            return "rate_limited";
+        }
+        if (e instanceof ExchangeException) {
+            return "upstream_error";
+        }
+        return e instanceof IllegalArgumentException || e instanceof InvalidSymbolException ? "invalid" : "error";
+    }
+
+    // Upper case and listed on the exchange, so unknown symbols fail here instead of upstream
+    private List<String> canonicalSymbols(String exchange, List<String> symbols) {
+        return normalizeSymbols(symbols).stream()
+                .map(symbol -> symbolIndex.canonical(exchange, symbol))
+                .distinct()
+                .toList();
+    }
+
+    private List<String> normalizeSymbols(List<String> symbols) {
+        List<String> normalized = symbols.stream()
+                .map(String::trim)
+                .filter(symbol -> !symbol.isEmpty())
+                .distinct()
+                .toList();
+        if (normalized.isEmpty()) {
+            throw new IllegalArgumentException("At least one symbol is required");
+        }
+        if (normalized.size() > MAX_SYMBOLS_PER_REQUEST) {
+            throw new IllegalArgumentException("At most " + MAX_SYMBOLS_PER_REQUEST + " symbols per request are supported");
+        }
+        return normalized;
+    }
+}
@@ -0,0 +1,140 @@
+package com.erikandreas.exchangedataservice.controller;
+
+import com.erikandreas.exchangedataservice.exception.InvalidSymbolException;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.service.PriceStreamService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Subscription;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket variant of the price stream. The client sends {@code {"pairs":["binance:BTCUSDT", ...]}};
+ * a new message replaces the previous subscription. All sends for a session go through one decorator, so
+ * successive subscriptions never write to the socket at once. Sends that would exceed the per-session buffer
+ * are dropped, so a slow client only falls behind to the latest price rather than building up a backlog.
+ * A session whose stream fails, or that stays blocked past the send time limit, is closed.
+ */
+@Component
+@Slf4j
+public class PriceWebSocketHandler extends TextWebSocketHandler {
+
+    private static final int SEND_TIME_LIMIT_MILLIS = 10_000;
+    private static final int SEND_BUFFER_SIZE_LIMIT = 64 * 1024;
+
+    private final PriceStreamService priceStreamService;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, Disposable> subscriptions = new ConcurrentHashMap<>();
+
+    public PriceWebSocketHandler(PriceStreamService priceStreamService) {
+        this.priceStreamService = priceStreamService;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        sessions.put(session.getId(), new ConcurrentWebSocketSessionDecorator(
+            session, SEND_TIME_LIMIT_MILLIS, SEND_BUFFER_SIZE_LIMIT,
+            ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        WebSocketSession decorated = sessions.get(session.getId());
+        if (decorated == null) {
+            return;
+        }
+        List<String> pairs = new ArrayList<>();
+        try {
+            JsonNode pairsNode = objectMapper.readTree(message.getPayload()).path("pairs");
+            pairsNode.forEach(pair -> pairs.add(pair.asText()));
+
+            Disposable previous = subscriptions.remove(session.getId());
+            if (previous != null) {
+                previous.dispose();
+            }
+            PriceSender sender = new PriceSender(decorated);
+            subscriptions.put(session.getId(), sender);
+            priceStreamService.subscribe(pairs, "websocket").subscribe(sender);
+        } catch (IllegalArgumentException | InvalidSymbolException | IOException e) {
+            log.debug("Rejected subscription on session {}: {}", session.getId(), e.getMessage());
+            decorated.sendMessage(new TextMessage(objectMapper.writeValueAsString(Map.of("error", e.getMessage()))));
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        sessions.remove(session.getId());
+        Disposable subscription = subscriptions.remove(session.getId());
+        if (subscription != null) {
+            subscription.dispose();
+        }
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.debug("Transport error on session {}: {}", session.getId(), exception.getMessage());
+        afterConnectionClosed(session, CloseStatus.SERVER_ERROR);
+    }
+
+    // Pulls one price at a time; the upstream keeps only the latest while a send is in progress
+    private class PriceSender extends BaseSubscriber<CryptoPrice> {
+
+        private final WebSocketSession session;
+
+        PriceSender(WebSocketSession session) {
+            this.session = session;
+        }
+
+        @Override
+        protected void hookOnSubscribe(Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(CryptoPrice price) {
+            try {
+                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(price)));
+                request(1);
+            } catch (IOException | RuntimeException e) {
+                // Includes SessionLimitExceededException once a send has been blocked past the time limit
+                log.debug("Closing session {} after failed send: {}", session.getId(), e.getMessage());
+                dispose();
+                close();
+            }
+        }
+
+        @Override
+        protected void hookOnError(Throwable error) {
+            log.warn("Price stream for session {} failed: {}", session.getId(), error.getMessage());
+            close();
+        }
+
+        private void close() {
+            subscriptions.remove(session.getId(), this);
+            try {
+                session.close(CloseStatus.SERVER_ERROR);
+            } catch (IOException e) {
+                log.debug("Could not close session {}: {}", session.getId(), e.getMessage());
+            }
+        }
+    }
+}
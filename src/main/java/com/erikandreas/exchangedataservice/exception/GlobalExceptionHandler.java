@@ -2,6 +2,7 @@ package com.erikandreas.exchangedataservice.exception;
 
 import com.erikandreas.exchangedataservice.model.ApiErrorResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -21,7 +22,13 @@ public class GlobalExceptionHandler {
                 .errorCode("RATE_LIMIT_EXCEEDED")
                 .timestamp(LocalDateTime.now())
                 .build();
-        return new ResponseEntity<>(error, HttpStatus.TOO_MANY_REQUESTS);
+        HttpHeaders headers = new HttpHeaders();
+        if (ex.getRetryAfter() != null) {
+            // Whole seconds, rounded up so clients do not come back before a token is due
+            long seconds = (ex.getRetryAfter().toMillis() + 999) / 1000;
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds)));
+        }
+        return new ResponseEntity<>(error, headers, HttpStatus.TOO_MANY_REQUESTS);
     }
 
     @ExceptionHandler(ExchangeException.class)
@@ -35,6 +42,17 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
     }
 
+    @ExceptionHandler(InvalidSymbolException.class)
+    public ResponseEntity<ApiErrorResponse> handleInvalidSymbol(InvalidSymbolException ex) {
+        ApiErrorResponse error = ApiErrorResponse
+                .builder()
+                .message(ex.getMessage())
+                .errorCode("INVALID_SYMBOL")
+                .timestamp(LocalDateTime.now())
+                .build();
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiErrorResponse> handleIllegalArgument(IllegalArgumentException ex) {
         ApiErrorResponse error = ApiErrorResponse
@@ -1,7 +1,7 @@
 package com.erikandreas.exchangedataservice.exception;
 
 public class InvalidSymbolException extends RuntimeException {
-    public InvalidSymbolException(String symbol) {
-        super("Invalid symbol: " + symbol);
+    public InvalidSymbolException(String message) {
+        super(message);
     }
 }
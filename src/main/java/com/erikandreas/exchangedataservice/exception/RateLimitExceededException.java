@@ -1,7 +1,23 @@
 package com.erikandreas.exchangedataservice.exception;
 
+import java.time.Duration;
+
 public class RateLimitExceededException extends RuntimeException {
+    private final Duration retryAfter;
+
     public RateLimitExceededException(String exchange) {
+        this(exchange, null);
+    }
+
+    public RateLimitExceededException(String exchange, Duration retryAfter) {
         super("Rate limit exceeded for exchange: " + exchange);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Estimated time until the request could be admitted, or {@code null} when unknown.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
     }
 }
@@ -0,0 +1,42 @@
+package com.erikandreas.exchangedataservice.ingestion;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.util.ResponseParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Binance individual symbol ticker streams ({@code <symbol>@ticker}), price = last trade price.
+ */
+@Component
+public class BinanceTickerStreamClient extends TickerStreamClient {
+
+    public BinanceTickerStreamClient(
+            @Value("${exchange.binance.stream-url}") URI uri,
+            @Value("${exchange.universe.binance}") List<String> symbols,
+            @Value("${exchange.streaming.stale-after:10s}") Duration staleAfter,
+            @Value("${exchange.streaming.enabled:true}") boolean enabled,
+            LatestPriceTable priceTable,
+            WebSocketClient webSocketClient) {
+        super("binance", uri, symbols, priceTable, webSocketClient, staleAfter, enabled);
+    }
+
+    @Override
+    protected String subscribeMessage(List<String> symbols) {
+        String streams = symbols.stream()
+            .map(symbol -> "\"" + symbol.toLowerCase() + "@ticker\"")
+            .collect(Collectors.joining(","));
+        return "{\"method\":\"SUBSCRIBE\",\"params\":[" + streams + "],\"id\":1}";
+    }
+
+    @Override
+    protected List<CryptoPrice> parse(String payload) {
+        return ResponseParser.parseBinanceStreamTicker(payload);
+    }
+}
@@ -0,0 +1,85 @@
+package com.erikandreas.exchangedataservice.ingestion;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import com.erikandreas.exchangedataservice.util.ResponseParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Kraken WebSocket v2 ticker channel. Like the REST services, the price is the best ask. Pair names come
+ * from the {@link SymbolIndex}; symbols it has no WebSocket name for are left to the REST path.
+ */
+@Component
+@Slf4j
+public class KrakenTickerStreamClient extends TickerStreamClient {
+
+    // Only used when the symbol index could not be loaded
+    private static final List<String> QUOTE_CURRENCIES = List.of("USDT", "USDC", "USD", "EUR", "GBP", "BTC", "ETH");
+
+    private final SymbolIndex symbolIndex;
+    private final Set<String> reportedUnmapped = ConcurrentHashMap.newKeySet();
+    private volatile Map<String, String> symbolsByPair = Map.of();
+
+    public KrakenTickerStreamClient(
+            @Value("${exchange.kraken.stream-url}") URI uri,
+            @Value("${exchange.universe.kraken}") List<String> symbols,
+            @Value("${exchange.streaming.stale-after:10s}") Duration staleAfter,
+            @Value("${exchange.streaming.enabled:true}") boolean enabled,
+            LatestPriceTable priceTable,
+            WebSocketClient webSocketClient,
+            SymbolIndex symbolIndex) {
+        super("kraken", uri, symbols, priceTable, webSocketClient, staleAfter, enabled);
+        this.symbolIndex = symbolIndex;
+    }
+
+    @Override
+    protected String subscribeMessage(List<String> symbols) {
+        Map<String, String> mapped = new LinkedHashMap<>();
+        for (String symbol : symbols) {
+            String pair = toPair(symbol);
+            if (pair == null) {
+                if (reportedUnmapped.add(symbol)) {
+                    log.warn("No Kraken WebSocket pair for {}, leaving it to REST", symbol);
+                }
+                continue;
+            }
+            mapped.putIfAbsent(pair, symbol);
+        }
+        symbolsByPair = Map.copyOf(mapped);
+
+        String pairs = mapped.keySet().stream()
+            .map(pair -> "\"" + pair + "\"")
+            .collect(Collectors.joining(","));
+        return "{\"method\":\"subscribe\",\"params\":{\"channel\":\"ticker\",\"symbol\":[" + pairs + "]}}";
+    }
+
+    @Override
+    protected List<CryptoPrice> parse(String payload) {
+        return ResponseParser.parseKrakenStreamMessage(payload, symbolsByPair);
+    }
+
+    // BTCUSDT -> BTC/USDT, the pair naming used by the v2 WebSocket API; null if the pair is unknown
+    private String toPair(String symbol) {
+        if (symbolIndex.isLoaded("kraken")) {
+            return symbolIndex.streamPair("kraken", symbol);
+        }
+        for (String quote : QUOTE_CURRENCIES) {
+            if (symbol.endsWith(quote) && symbol.length() > quote.length()) {
+                return symbol.substring(0, symbol.length() - quote.length()) + "/" + quote;
+            }
+        }
+        return null;
+    }
+}
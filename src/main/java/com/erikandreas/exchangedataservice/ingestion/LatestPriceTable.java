@@ -0,0 +1,69 @@
+package com.erikandreas.exchangedataservice.ingestion;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Latest streamed price per exchange/symbol. Slots are created once when a feed subscribes;
+ * after that, updates and reads are single atomic reference operations with no locking.
+ */
+@Component
+public class LatestPriceTable {
+
+    private final ConcurrentMap<String, AtomicReference<StreamedPrice>> slots = new ConcurrentHashMap<>();
+    private final long staleAfterNanos;
+
+    public LatestPriceTable(@Value("${exchange.streaming.stale-after:10s}") Duration staleAfter) {
+        this.staleAfterNanos = staleAfter.toNanos();
+    }
+
+    public void register(String exchange, Collection<String> symbols) {
+        for (String symbol : symbols) {
+            slots.putIfAbsent(key(exchange, symbol), new AtomicReference<>());
+        }
+    }
+
+    public boolean isSubscribed(String exchange, String symbol) {
+        return slots.containsKey(key(exchange, symbol));
+    }
+
+    public void update(String exchange, CryptoPrice price) {
+        AtomicReference<StreamedPrice> slot = slots.get(key(exchange, price.getSymbol()));
+        if (slot != null) {
+            slot.set(new StreamedPrice(price, System.nanoTime()));
+        }
+    }
+
+    /**
+     * Latest streamed price, or null if the symbol is not subscribed or its feed has gone stale.
+     */
+    public CryptoPrice getFresh(String exchange, String symbol) {
+        AtomicReference<StreamedPrice> slot = slots.get(key(exchange, symbol));
+        if (slot == null) {
+            return null;
+        }
+        StreamedPrice streamed = slot.get();
+        if (streamed == null || System.nanoTime() - streamed.receivedAtNanos() > staleAfterNanos) {
+            return null;
+        }
+        return streamed.price();
+    }
+
+    public boolean hasFresh(String exchange, String symbol) {
+        return getFresh(exchange, symbol) != null;
+    }
+
+    private static String key(String exchange, String symbol) {
+        return exchange + ":" + symbol;
+    }
+
+    private record StreamedPrice(CryptoPrice price, long receivedAtNanos) {
+    }
+}
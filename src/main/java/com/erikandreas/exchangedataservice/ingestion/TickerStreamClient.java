@@ -0,0 +1,121 @@
+package com.erikandreas.exchangedataservice.ingestion;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.WebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps a WebSocket ticker subscription open for a fixed symbol universe and writes every tick into the
+ * {@link LatestPriceTable}. The connection is re-established (and the subscription re-sent) whenever it
+ * closes, fails, or goes silent for longer than the stale threshold.
+ */
+@Slf4j
+public abstract class TickerStreamClient implements SmartLifecycle {
+
+    private static final Duration INITIAL_RECONNECT_DELAY = Duration.ofSeconds(1);
+    private static final Duration MAX_RECONNECT_DELAY = Duration.ofSeconds(30);
+
+    private final String exchange;
+    private final URI uri;
+    private final List<String> symbols;
+    private final LatestPriceTable priceTable;
+    private final WebSocketClient webSocketClient;
+    private final Duration staleAfter;
+    private final boolean enabled;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile Disposable connection;
+
+    protected TickerStreamClient(
+            String exchange,
+            URI uri,
+            List<String> symbols,
+            LatestPriceTable priceTable,
+            WebSocketClient webSocketClient,
+            Duration staleAfter,
+            boolean enabled) {
+        this.exchange = exchange;
+        this.uri = uri;
+        this.symbols = List.copyOf(symbols);
+        this.priceTable = priceTable;
+        this.webSocketClient = webSocketClient;
+        this.staleAfter = staleAfter;
+        this.enabled = enabled;
+    }
+
+    protected abstract String subscribeMessage(List<String> symbols);
+
+    /**
+     * Parses one frame; returns the prices it carries (empty for acks and heartbeats).
+     */
+    protected abstract List<CryptoPrice> parse(String payload) throws Exception;
+
+    @Override
+    public void start() {
+        if (!enabled || symbols.isEmpty()) {
+            return;
+        }
+        priceTable.register(exchange, symbols);
+        connection = Mono.defer(this::connectOnce)
+            .onErrorResume(error -> {
+                log.warn("{} ticker stream disconnected: {}", exchange, error.toString());
+                return Mono.empty();
+            })
+            .then(Mono.defer(() -> Mono.delay(nextReconnectDelay())))
+            .repeat()
+            .subscribe();
+    }
+
+    private Mono<Void> connectOnce() {
+        return webSocketClient.execute(uri, session -> {
+            log.info("Connected to {} ticker stream, subscribing to {} symbols", exchange, symbols.size());
+            Mono<Void> subscribe = session.send(Mono.just(session.textMessage(subscribeMessage(symbols))));
+            Mono<Void> receive = session.receive()
+                .timeout(staleAfter)
+                .map(WebSocketMessage::getPayloadAsText)
+                .doOnNext(this::handle)
+                .then();
+            return subscribe.then(receive);
+        });
+    }
+
+    private void handle(String payload) {
+        consecutiveFailures.set(0);
+        try {
+            for (CryptoPrice price : parse(payload)) {
+                priceTable.update(exchange, price);
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring unparseable {} ticker message: {}", exchange, e.getMessage());
+        }
+    }
+
+    private Duration nextReconnectDelay() {
+        int failures = Math.min(consecutiveFailures.getAndIncrement(), 5);
+        Duration delay = INITIAL_RECONNECT_DELAY.multipliedBy(1L << failures);
+        return delay.compareTo(MAX_RECONNECT_DELAY) > 0 ? MAX_RECONNECT_DELAY : delay;
+    }
+
+    @Override
+    public void stop() {
+        Disposable current = connection;
+        if (current != null) {
+            current.dispose();
+            connection = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return connection != null && !connection.isDisposed();
+    }
+}
@@ -0,0 +1,31 @@
+package com.erikandreas.exchangedataservice.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import lombok.Getter;
+
+import java.time.Duration;
+
+@Getter
+public enum BarInterval {
+    ONE_MINUTE("1m", Duration.ofMinutes(1)),
+    FIVE_MINUTES("5m", Duration.ofMinutes(5)),
+    ONE_HOUR("1h", Duration.ofHours(1));
+
+    @JsonValue
+    private final String code;
+    private final Duration duration;
+
+    BarInterval(String code, Duration duration) {
+        this.code = code;
+        this.duration = duration;
+    }
+
+    public static BarInterval fromCode(String code) {
+        for (BarInterval interval : values()) {
+            if (interval.code.equalsIgnoreCase(code)) {
+                return interval;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported bar interval: " + code + " (use 1m, 5m or 1h)");
+    }
+}
@@ -0,0 +1,57 @@
+package com.erikandreas.exchangedataservice.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Price of one symbol across all exchanges that answered within the deadline")
+public class ConsolidatedPrice {
+    @Schema(description = "Trading symbol", example = "BTCUSDT")
+    private String symbol;
+
+    @Schema(description = "Median of the exchange prices", example = "45000.05")
+    private BigDecimal median;
+
+    @Schema(description = "Lowest exchange price", example = "45000.00")
+    private BigDecimal min;
+
+    @Schema(description = "Highest exchange price", example = "45000.10")
+    private BigDecimal max;
+
+    @Schema(description = "Difference between the highest and lowest price", example = "0.10")
+    private BigDecimal spread;
+
+    @Schema(description = "Highest bid across exchanges, absent when no exchange reported one", example = "45000.00")
+    private BigDecimal bestBid;
+
+    @Schema(description = "Exchange with the highest bid", example = "Kraken")
+    private String bestBidExchange;
+
+    @Schema(description = "Lowest ask across exchanges, absent when no exchange reported one", example = "45000.10")
+    private BigDecimal bestAsk;
+
+    @Schema(description = "Exchange with the lowest ask", example = "Binance")
+    private String bestAskExchange;
+
+    @Schema(description = "Exchanges whose price is included")
+    private List<String> exchanges;
+
+    @Schema(description = "Exchanges that failed or missed the deadline")
+    private List<String> missing;
+
+    @Schema(description = "The individual exchange prices")
+    private List<CryptoPrice> prices;
+
+    @Schema(description = "When the prices were consolidated", example = "2024-02-14T10:15:30")
+    private LocalDateTime timestamp;
+}
@@ -1,16 +1,23 @@
 package com.erikandreas.exchangedataservice.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.experimental.Tolerate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+/**
+ * Prices are held as {@link FixedPrice} so parsing, caching and aggregation stay on longs; the
+ * {@link BigDecimal} accessors are what JSON and API callers see.
+ */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Cryptocurrency price information")
@@ -18,12 +25,91 @@ public class CryptoPrice {
     @Schema(description = "Trading symbol", example = "BTCUSDT")
     private String symbol;
 
-    @Schema(description = "Current price", example = "45000.00")
-    private BigDecimal price;
+    @Schema(description = "Current price", example = "45000.00", implementation = BigDecimal.class)
+    private FixedPrice price;
+
+    @Schema(description = "Best bid price, when the exchange reports it", example = "44999.90", implementation = BigDecimal.class)
+    private FixedPrice bid;
+
+    @Schema(description = "Best ask price, when the exchange reports it", example = "45000.10", implementation = BigDecimal.class)
+    private FixedPrice ask;
 
     @Schema(description = "Exchange name", example = "Binance")
     private String exchange;
 
     @Schema(description = "Timestamp of the price", example = "2024-02-13T10:15:30")
     private LocalDateTime timestamp;
+
+    @Schema(description = "Present and true when the price is served from cache past its freshness lifetime, " +
+            "for example because the exchange is failing or rate limiting us", example = "true")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean stale;
+
+    @Schema(description = "Seconds since a stale price was fetched; only present on stale prices", example = "75")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long ageSeconds;
+
+    public BigDecimal getPrice() {
+        return toBigDecimal(price);
+    }
+
+    public void setPrice(BigDecimal price) {
+        this.price = toFixed(price);
+    }
+
+    public BigDecimal getBid() {
+        return toBigDecimal(bid);
+    }
+
+    public void setBid(BigDecimal bid) {
+        this.bid = toFixed(bid);
+    }
+
+    public BigDecimal getAsk() {
+        return toBigDecimal(ask);
+    }
+
+    public void setAsk(BigDecimal ask) {
+        this.ask = toFixed(ask);
+    }
+
+    @JsonIgnore
+    public FixedPrice getFixedPrice() {
+        return price;
+    }
+
+    @JsonIgnore
+    public FixedPrice getFixedBid() {
+        return bid;
+    }
+
+    @JsonIgnore
+    public FixedPrice getFixedAsk() {
+        return ask;
+    }
+
+    private static BigDecimal toBigDecimal(FixedPrice value) {
+        return value != null ? value.toBigDecimal() : null;
+    }
+
+    private static FixedPrice toFixed(BigDecimal value) {
+        return value != null ? FixedPrice.valueOf(value) : null;
+    }
+
+    public static class CryptoPriceBuilder {
+        @Tolerate
+        public CryptoPriceBuilder price(BigDecimal price) {
+            return price(toFixed(price));
+        }
+
+        @Tolerate
+        public CryptoPriceBuilder bid(BigDecimal bid) {
+            return bid(toFixed(bid));
+        }
+
+        @Tolerate
+        public CryptoPriceBuilder ask(BigDecimal ask) {
+            return ask(toFixed(ask));
+        }
+    }
 }
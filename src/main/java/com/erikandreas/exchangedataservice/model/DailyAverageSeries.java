@@ -0,0 +1,47 @@
+package com.erikandreas.exchangedataservice.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Daily average prices of one symbol over a date range, one point per day")
+public class DailyAverageSeries {
+    @Schema(description = "Trading symbol", example = "BTCUSDT")
+    private String symbol;
+
+    @Schema(description = "Exchange name", example = "binance")
+    private String exchange;
+
+    @Schema(description = "First day of the range", example = "2024-02-01")
+    private LocalDate from;
+
+    @Schema(description = "Last day of the range", example = "2024-02-29")
+    private LocalDate to;
+
+    @Schema(description = "One point per day in the range; days without data have no average and zero updates")
+    private List<Point> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Point {
+        @Schema(description = "Day", example = "2024-02-13")
+        private LocalDate date;
+
+        @Schema(description = "Average price, absent when no prices were recorded that day", example = "45012.34567891")
+        private BigDecimal averagePrice;
+
+        @Schema(description = "Number of prices averaged", example = "288")
+        private int numberOfUpdates;
+    }
+}
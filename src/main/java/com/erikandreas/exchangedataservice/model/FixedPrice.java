@@ -0,0 +1,226 @@
+package com.erikandreas.exchangedataservice.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Decimal price as an unscaled {@code long} and a scale (45000.10 is 4500010 at scale 2), the form exchanges
+ * send prices in. Parsing, comparing, rescaling and printing work on the long, without the BigDecimal and
+ * BigInteger intermediates; {@link #toBigDecimal()} is only needed at the JSON edge.
+ * <p>
+ * Values that do not fit (more than 18 digits, or a scale outside 0..127), which no exchange sends, are
+ * kept as a BigDecimal so nothing is ever rounded. Like {@link BigDecimal#equals}, equality includes the
+ * scale (2.0 is not 2.00); use {@link #compareTo} to compare values.
+ */
+public final class FixedPrice implements Comparable<FixedPrice> {
+
+    public static final int MAX_SCALE = 127;
+
+    private static final long[] POWERS_OF_TEN = {
+        1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+        10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+        1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+
+    private final long unscaled;
+    private final int scale;
+    // Only set for values that do not fit the long form
+    private final BigDecimal inflated;
+
+    private FixedPrice(long unscaled, int scale, BigDecimal inflated) {
+        this.unscaled = unscaled;
+        this.scale = scale;
+        this.inflated = inflated;
+    }
+
+    public static FixedPrice of(long unscaled, int scale) {
+        if (scale < 0 || scale > MAX_SCALE) {
+            return inflated(BigDecimal.valueOf(unscaled, scale));
+        }
+        return new FixedPrice(unscaled, scale, null);
+    }
+
+    public static FixedPrice valueOf(BigDecimal value) {
+        if (value.scale() >= 0 && value.scale() <= MAX_SCALE && value.unscaledValue().bitLength() < 64) {
+            return new FixedPrice(value.unscaledValue().longValue(), value.scale(), null);
+        }
+        return inflated(value);
+    }
+
+    /**
+     * Parses a plain decimal such as {@code "-45000.12000000"}; anything else {@link BigDecimal} accepts
+     * (exponents, more than 18 digits) is handed to it, with the same {@link NumberFormatException}s.
+     */
+    public static FixedPrice parse(CharSequence text) {
+        return parse(null, text, 0, text.length());
+    }
+
+    /**
+     * {@link #parse(CharSequence)} over a slice of a buffer, such as a JSON parser's text buffer.
+     */
+    public static FixedPrice parse(char[] chars, int offset, int length) {
+        return parse(chars, null, offset, length);
+    }
+
+    // Reads from chars when given, else from text, so neither caller has to copy its input
+    private static FixedPrice parse(char[] chars, CharSequence text, int offset, int length) {
+        int i = offset;
+        int end = offset + length;
+        boolean negative = false;
+        char first = i < end ? charAt(chars, text, i) : 0;
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            char c = charAt(chars, text, i);
+            if (c == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return slowParse(chars, text, offset, length);
+            }
+            value = value * 10 + (c - '0');
+            digits++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+
+        if (digits == 0 || scale > MAX_SCALE) {
+            return slowParse(chars, text, offset, length);
+        }
+        return new FixedPrice(negative ? -value : value, Math.max(scale, 0), null);
+    }
+
+    public boolean fitsLong() {
+        return inflated == null;
+    }
+
+    /**
+     * @throws ArithmeticException if the value does not fit the long form
+     */
+    public long unscaled() {
+        if (inflated != null) {
+            throw new ArithmeticException("Price does not fit a long: " + inflated);
+        }
+        return unscaled;
+    }
+
+    public int scale() {
+        return inflated != null ? inflated.scale() : scale;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return inflated != null ? inflated : BigDecimal.valueOf(unscaled, scale);
+    }
+
+    /**
+     * The unscaled value at {@code targetScale}, rounded half up like {@link BigDecimal#setScale(int, RoundingMode)}.
+     *
+     * @throws ArithmeticException if the result does not fit a long
+     */
+    public long toUnscaled(int targetScale) {
+        int shift = targetScale - scale;
+        if (inflated != null || Math.abs(shift) >= POWERS_OF_TEN.length) {
+            return toBigDecimal().setScale(targetScale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        }
+        if (shift >= 0) {
+            return Math.multiplyExact(unscaled, POWERS_OF_TEN[shift]);
+        }
+        long divisor = POWERS_OF_TEN[-shift];
+        long quotient = unscaled / divisor;
+        long remainder = Math.abs(unscaled % divisor);
+        return remainder * 2 >= divisor ? quotient + Long.signum(unscaled) : quotient;
+    }
+
+    public String toPlainString() {
+        if (inflated != null || unscaled == Long.MIN_VALUE) {
+            return toBigDecimal().toPlainString();
+        }
+        String digits = Long.toString(Math.abs(unscaled));
+        StringBuilder plain = new StringBuilder(digits.length() + scale + 3);
+        if (unscaled < 0) {
+            plain.append('-');
+        }
+        if (scale == 0) {
+            return plain.append(digits).toString();
+        }
+        int integerDigits = digits.length() - scale;
+        if (integerDigits > 0) {
+            plain.append(digits, 0, integerDigits).append('.').append(digits, integerDigits, digits.length());
+        } else {
+            plain.append("0.");
+            plain.repeat('0', -integerDigits);
+            plain.append(digits);
+        }
+        return plain.toString();
+    }
+
+    @Override
+    public int compareTo(FixedPrice other) {
+        if (inflated == null && other.inflated == null) {
+            if (scale == other.scale) {
+                return Long.compare(unscaled, other.unscaled);
+            }
+            try {
+                return scale < other.scale
+                    ? Long.compare(rescale(unscaled, other.scale - scale), other.unscaled)
+                    : Long.compare(unscaled, rescale(other.unscaled, scale - other.scale));
+            } catch (ArithmeticException e) {
+                // Too far apart for a long; fall through to BigDecimal
+            }
+        }
+        return toBigDecimal().compareTo(other.toBigDecimal());
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof FixedPrice other)) {
+            return false;
+        }
+        if (inflated != null || other.inflated != null) {
+            return toBigDecimal().equals(other.toBigDecimal());
+        }
+        return unscaled == other.unscaled && scale == other.scale;
+    }
+
+    @Override
+    public int hashCode() {
+        return inflated != null ? inflated.hashCode() : 31 * Long.hashCode(unscaled) + scale;
+    }
+
+    @Override
+    public String toString() {
+        return toPlainString();
+    }
+
+    private static long rescale(long value, int shift) {
+        if (shift >= POWERS_OF_TEN.length) {
+            throw new ArithmeticException("Scale difference too large");
+        }
+        return Math.multiplyExact(value, POWERS_OF_TEN[shift]);
+    }
+
+    private static char charAt(char[] chars, CharSequence text, int index) {
+        return chars != null ? chars[index] : text.charAt(index);
+    }
+
+    private static FixedPrice slowParse(char[] chars, CharSequence text, int offset, int length) {
+        return valueOf(chars != null
+            ? new BigDecimal(chars, offset, length)
+            : new BigDecimal(text.subSequence(offset, offset + length).toString()));
+    }
+
+    private static FixedPrice inflated(BigDecimal value) {
+        return new FixedPrice(0, 0, value);
+    }
+}
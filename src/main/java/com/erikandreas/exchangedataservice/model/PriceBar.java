@@ -0,0 +1,44 @@
+package com.erikandreas.exchangedataservice.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Open-high-low-close bar built from the prices observed during one interval")
+public class PriceBar {
+    @Schema(description = "Trading symbol", example = "BTCUSDT")
+    private String symbol;
+
+    @Schema(description = "Exchange name", example = "binance")
+    private String exchange;
+
+    @Schema(description = "Bar interval", example = "1m")
+    private BarInterval interval;
+
+    @Schema(description = "Start of the interval", example = "2024-02-13T10:15:00")
+    private LocalDateTime openTime;
+
+    @Schema(description = "First observed price", example = "45000.00")
+    private BigDecimal open;
+
+    @Schema(description = "Highest observed price", example = "45100.00")
+    private BigDecimal high;
+
+    @Schema(description = "Lowest observed price", example = "44950.00")
+    private BigDecimal low;
+
+    @Schema(description = "Last observed price", example = "45050.00")
+    private BigDecimal close;
+
+    @Schema(description = "Number of prices observed in the interval", example = "12")
+    private long count;
+}
@@ -0,0 +1,206 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets callers wait for rate limit tokens instead of failing at once. Waiters are served by priority,
+ * then in arrival order, by one dispatcher (virtual) thread per exchange. A waiter that does not get its
+ * tokens within the wait limit of its priority, or that finds the queue full, is rejected with a
+ * {@code Retry-After} estimated from the refill rate and the weight queued ahead of it.
+ * <p>
+ * A waiter is claimed (by compare-and-set) by whoever resolves it: the dispatcher before it takes tokens,
+ * or the timeout or a cancelled caller before giving up. Tokens are therefore never taken for a waiter
+ * that was already rejected.
+ */
+@Slf4j
+public class AdmissionQueue implements AutoCloseable {
+
+    private static final long MAX_PAUSE_MILLIS = 50;
+
+    private final String exchange;
+    private final ExchangeRateLimiter limiter;
+    private final int maxQueued;
+    private final Map<Priority, Duration> maxWait;
+
+    private final PriorityBlockingQueue<Waiter> queue = new PriorityBlockingQueue<>(
+        16, Comparator.comparing(Waiter::priority).thenComparingLong(Waiter::sequence));
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong queuedWeight = new AtomicLong();
+    // Waiters not yet admitted or rejected, including the one the dispatcher holds outside the queue
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Thread dispatcher;
+
+    private final Map<Priority, Timer> waitTimes = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> shed = new EnumMap<>(Priority.class);
+
+    public AdmissionQueue(
+            String exchange,
+            ExchangeRateLimiter limiter,
+            int maxQueued,
+            Map<Priority, Duration> maxWait,
+            MeterRegistry meterRegistry) {
+        this.exchange = exchange;
+        this.limiter = limiter;
+        this.maxQueued = maxQueued;
+        this.maxWait = maxWait;
+
+        for (Priority priority : Priority.values()) {
+            String tag = priority.name().toLowerCase();
+            waitTimes.put(priority, Timer.builder("rate.limit.admission.wait")
+                .tags("exchange", exchange, "priority", tag)
+                .register(meterRegistry));
+            shed.put(priority, Counter.builder("rate.limit.admission.shed")
+                .tags("exchange", exchange, "priority", tag)
+                .register(meterRegistry));
+        }
+        Gauge.builder("rate.limit.admission.queued", pending, AtomicInteger::get)
+            .tag("exchange", exchange)
+            .register(meterRegistry);
+
+        this.dispatcher = Thread.ofVirtual().name("admission-" + exchange).start(this::dispatch);
+    }
+
+    /**
+     * Blocks until {@code weight} tokens are taken; meant for virtual threads.
+     *
+     * @throws RateLimitExceededException when the queue is full or the wait limit passes
+     */
+    public void acquire(long weight, Priority priority) {
+        // Arrivals only skip the line when nobody is in it
+        if (pending.get() == 0 && limiter.tryConsume(weight)) {
+            waitTimes.get(priority).record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+        try {
+            enqueue(weight, priority).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Completes once {@code weight} tokens are taken, without blocking the caller; the bucket is only
+     * touched on the dispatcher thread. Completes exceptionally with {@link RateLimitExceededException}.
+     */
+    public CompletableFuture<Void> enqueue(long weight, Priority priority) {
+        if (pending.incrementAndGet() > maxQueued) {
+            pending.decrementAndGet();
+            shed.get(priority).increment();
+            return CompletableFuture.failedFuture(rejection(weight));
+        }
+
+        long maxWaitNanos = maxWait.get(priority).toNanos();
+        long now = System.nanoTime();
+        Waiter waiter = new Waiter(priority, sequence.incrementAndGet(), weight, now, now + maxWaitNanos,
+            new AtomicBoolean(), new CompletableFuture<>());
+        queuedWeight.addAndGet(weight);
+        queue.add(waiter);
+        CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+            if (waiter.claimed().compareAndSet(false, true)) {
+                reject(waiter);
+            }
+        });
+
+        // Cancelling the returned future (a disposed reactive caller) gives up the place in line
+        CompletableFuture<Void> admitted = waiter.admitted().copy();
+        admitted.whenComplete((ignored, e) -> {
+            if (admitted.isCancelled() && waiter.claimed().compareAndSet(false, true)) {
+                resolve(waiter);
+            }
+        });
+        return admitted;
+    }
+
+    @Override
+    public void close() {
+        dispatcher.interrupt();
+    }
+
+    private void dispatch() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Waiter waiter = queue.take();
+                if (!waiter.claimed().compareAndSet(false, true)) {
+                    // Timed out or cancelled while queued
+                    continue;
+                }
+                if (tryConsume(waiter)) {
+                    resolve(waiter);
+                    waitTimes.get(waiter.priority()).record(System.nanoTime() - waiter.queuedAt(), TimeUnit.NANOSECONDS);
+                    waiter.admitted().complete(null);
+                    continue;
+                }
+                if (waiter.admitted().isDone()) {
+                    continue;
+                }
+                if (System.nanoTime() - waiter.deadline() >= 0) {
+                    // Its timeout fired while we held the claim
+                    reject(waiter);
+                    continue;
+                }
+
+                // Still first in line; check again when a token is due, or sooner for a more urgent arrival
+                waiter.claimed().set(false);
+                queue.add(waiter);
+                long pause = Math.min(MAX_PAUSE_MILLIS, limiter.estimateWait(waiter.weight()).toMillis());
+                Thread.sleep(Math.max(1, pause));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean tryConsume(Waiter waiter) {
+        try {
+            return limiter.tryConsume(waiter.weight());
+        } catch (RuntimeException e) {
+            log.error("Error taking {} rate limit tokens: {}", exchange, e.getMessage());
+            resolve(waiter);
+            waiter.admitted().completeExceptionally(e);
+            return false;
+        }
+    }
+
+    // Only called by the holder of the waiter's claim, so exactly once per waiter
+    private void resolve(Waiter waiter) {
+        pending.decrementAndGet();
+        queuedWeight.addAndGet(-waiter.weight());
+    }
+
+    private void reject(Waiter waiter) {
+        resolve(waiter);
+        shed.get(waiter.priority()).increment();
+        waiter.admitted().completeExceptionally(rejection(waiter.weight()));
+    }
+
+    private RateLimitExceededException rejection(long weight) {
+        return new RateLimitExceededException(exchange, limiter.estimateWait(queuedWeight.get() + weight));
+    }
+
+    private record Waiter(
+            Priority priority,
+            long sequence,
+            long weight,
+            long queuedAt,
+            long deadline,
+            AtomicBoolean claimed,
+            CompletableFuture<Void> admitted) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+
+/**
+ * Weight-based limit for one exchange that adjusts itself to what the exchange reports. The budget grows
+ * additively towards the configured quota while the exchange reports headroom, and shrinks
+ * multiplicatively when reported usage gets close to the quota or the exchange throttles us; a 429 or
+ * 418 also stops all requests until its {@code Retry-After} has passed.
+ */
+@Slf4j
+public class ExchangeRateLimiter {
+
+    private static final double HIGH_USAGE = 0.9;
+    private static final double LOW_USAGE = 0.7;
+    private static final double USAGE_DECREASE = 0.7;
+    private static final double THROTTLED_DECREASE = 0.5;
+    private static final double INCREASE_STEP = 0.01;
+
+    private final String exchange;
+    private final TokenBucket bucket;
+    private final long quota;
+    private final long minCapacity;
+    private final Duration period;
+    private final String usedWeightHeader;
+
+    private final Counter usageBackoffs;
+    private final Counter throttledBackoffs;
+    private final Counter bannedBackoffs;
+
+    private volatile long blockedUntil;
+    private volatile long lastDecrease;
+
+    /**
+     * @param quota            weight the exchange allows per period; the bucket never grows beyond it
+     * @param usedWeightHeader response header carrying the weight used in the current window, or
+     *                         {@code null} when the exchange does not report it
+     */
+    public ExchangeRateLimiter(
+            String exchange,
+            TokenBucket bucket,
+            long quota,
+            Duration period,
+            String usedWeightHeader,
+            MeterRegistry meterRegistry) {
+        this.exchange = exchange;
+        this.bucket = bucket;
+        this.quota = quota;
+        this.minCapacity = Math.max(1, quota / 20);
+        this.period = period;
+        this.usedWeightHeader = usedWeightHeader;
+
+        this.usageBackoffs = backoffCounter(meterRegistry, "usage");
+        this.throttledBackoffs = backoffCounter(meterRegistry, "throttled");
+        this.bannedBackoffs = backoffCounter(meterRegistry, "banned");
+        Gauge.builder("rate.limit.capacity", bucket, TokenBucket::getCapacity)
+            .description("Current weight budget per period")
+            .tag("exchange", exchange)
+            .register(meterRegistry);
+    }
+
+    public boolean tryConsume(long weight) {
+        if (System.currentTimeMillis() < blockedUntil) {
+            return false;
+        }
+        return bucket.tryConsume(weight);
+    }
+
+    /**
+     * Feeds a response from the exchange back into the budget.
+     */
+    public void onResponse(int status, HttpHeaders headers) {
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value() || status == HttpStatus.I_AM_A_TEAPOT.value()) {
+            // 418 means the exchange has banned us for ignoring earlier 429s
+            boolean banned = status == HttpStatus.I_AM_A_TEAPOT.value();
+            Duration retryAfter = retryAfter(headers);
+            blockedUntil = System.currentTimeMillis() + retryAfter.toMillis();
+            lastDecrease = System.currentTimeMillis();
+            resize(banned ? minCapacity : (long) (bucket.getCapacity() * THROTTLED_DECREASE));
+            log.warn("{} responded {}, pausing requests for {}s at a budget of {}",
+                exchange, status, retryAfter.toSeconds(), bucket.getCapacity());
+            (banned ? bannedBackoffs : throttledBackoffs).increment();
+            return;
+        }
+
+        Long used = usedWeight(headers);
+        if (used == null) {
+            return;
+        }
+        long capacity = bucket.getCapacity();
+        long now = System.currentTimeMillis();
+        if (used >= quota * HIGH_USAGE) {
+            // Responses already in flight report the same usage; only the first of them shrinks the budget
+            if (now - lastDecrease >= period.toMillis() / 10) {
+                lastDecrease = now;
+                resize((long) (capacity * USAGE_DECREASE));
+                usageBackoffs.increment();
+            }
+        } else if (used < quota * LOW_USAGE && capacity < quota) {
+            resize(capacity + Math.max(1, (long) (quota * INCREASE_STEP)));
+        }
+    }
+
+    public long getCapacity() {
+        return bucket.getCapacity();
+    }
+
+    public long getAvailableTokens() {
+        return System.currentTimeMillis() < blockedUntil ? 0 : bucket.getAvailableTokens();
+    }
+
+    /**
+     * Rough time until {@code weight} tokens can be taken: any remaining pause plus the refill time of
+     * the tokens missing at the current budget.
+     */
+    public Duration estimateWait(long weight) {
+        long blocked = Math.max(0, blockedUntil - System.currentTimeMillis());
+        long missing = Math.max(0, weight - getAvailableTokens());
+        return Duration.ofMillis(blocked + missing * period.toMillis() / bucket.getCapacity());
+    }
+
+    private void resize(long capacity) {
+        long bounded = Math.max(minCapacity, Math.min(quota, capacity));
+        if (bounded != bucket.getCapacity()) {
+            bucket.setCapacity(bounded);
+        }
+    }
+
+    private Long usedWeight(HttpHeaders headers) {
+        String value = usedWeightHeader != null ? headers.getFirst(usedWeightHeader) : null;
+        try {
+            return value != null ? Long.parseLong(value.trim()) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Retry-After in seconds; without it we sit out one full window
+    private Duration retryAfter(HttpHeaders headers) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        try {
+            return value != null ? Duration.ofSeconds(Long.parseLong(value.trim())) : period;
+        } catch (NumberFormatException e) {
+            return period;
+        }
+    }
+
+    private Counter backoffCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("rate.limit.backoffs")
+            .tags("exchange", exchange, "reason", reason)
+            .register(registry);
+    }
+}
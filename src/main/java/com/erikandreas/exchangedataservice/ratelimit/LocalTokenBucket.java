@@ -0,0 +1,53 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.TokensInheritanceStrategy;
+
+import java.time.Duration;
+
+/**
+ * In-process bucket; the limit applies to this node only.
+ */
+public class LocalTokenBucket implements TokenBucket {
+
+    private final Duration period;
+    private final Bucket bucket;
+    private volatile long capacity;
+
+    public LocalTokenBucket(long capacity, Duration period) {
+        this.period = period;
+        this.capacity = capacity;
+        this.bucket = Bucket.builder()
+            .addLimit(bandwidth(capacity, period))
+            .build();
+    }
+
+    @Override
+    public boolean tryConsume(long tokens) {
+        return bucket.tryConsume(tokens);
+    }
+
+    @Override
+    public long getAvailableTokens() {
+        return bucket.getAvailableTokens();
+    }
+
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void setCapacity(long capacity) {
+        this.capacity = capacity;
+        bucket.replaceConfiguration(
+            BucketConfiguration.builder().addLimit(bandwidth(capacity, period)).build(),
+            TokensInheritanceStrategy.AS_IS);
+    }
+
+    private static Bandwidth bandwidth(long capacity, Duration period) {
+        return Bandwidth.builder().capacity(capacity).refillGreedy(capacity, period).build();
+    }
+}
@@ -0,0 +1,50 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Admission priority of upstream calls. Waiting interactive requests always get a token before waiting
+ * background ones, so scheduled refreshes cannot starve user traffic.
+ */
+public enum Priority {
+    INTERACTIVE,
+    BACKGROUND;
+
+    // The blocking loaders run on the caller's thread, so the caller's priority travels with it
+    private static final ThreadLocal<Priority> CURRENT = ThreadLocal.withInitial(() -> INTERACTIVE);
+
+    public static Priority current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Priority of a reactive pipeline, which carries it in its Reactor context as it hops threads.
+     */
+    public static Priority current(ContextView context) {
+        return context.getOrDefault(Priority.class, INTERACTIVE);
+    }
+
+    /**
+     * For {@code contextWrite}: upstream calls made by the pipeline are admitted at this priority.
+     */
+    public Function<Context, Context> inContext() {
+        return context -> context.put(Priority.class, this);
+    }
+
+    /**
+     * Runs {@code action} with upstream calls made on this thread admitted at {@code priority}.
+     */
+    public static <T> T callAs(Priority priority, Supplier<T> action) {
+        Priority previous = CURRENT.get();
+        CURRENT.set(priority);
+        try {
+            return action.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
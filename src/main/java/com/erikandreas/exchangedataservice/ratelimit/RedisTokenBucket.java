@@ -0,0 +1,141 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket shared by all nodes through Redis, so the exchange limit holds however many replicas run.
+ * To keep Redis off the hot path each node takes tokens in small batches and hands them out locally;
+ * prefetched tokens are only good for a short while, so an idle node cannot save them up and later
+ * burst past the global rate. When Redis cannot be reached the node falls back to its own local bucket.
+ */
+@Slf4j
+public class RedisTokenBucket implements TokenBucket {
+
+    private static final RedisScript<List<Long>> TAKE_SCRIPT = takeScript();
+
+    private final StringRedisTemplate redisTemplate;
+    private final String key;
+    private final Duration period;
+    private final long prefetch;
+    private final long prefetchTtlNanos;
+    private final TokenBucket fallback;
+
+    private final AtomicReference<Prefetched> prefetched = new AtomicReference<>(Prefetched.NONE);
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile long capacity;
+    private volatile long lastKnownRemaining;
+
+    public RedisTokenBucket(
+            StringRedisTemplate redisTemplate,
+            String key,
+            long capacity,
+            Duration period,
+            long prefetch,
+            Duration prefetchTtl,
+            TokenBucket fallback) {
+        this.redisTemplate = redisTemplate;
+        this.key = key;
+        this.capacity = capacity;
+        this.period = period;
+        this.prefetch = Math.max(1, prefetch);
+        this.prefetchTtlNanos = prefetchTtl.toNanos();
+        this.fallback = fallback;
+        this.lastKnownRemaining = capacity;
+    }
+
+    @Override
+    public boolean tryConsume(long tokens) {
+        if (takePrefetched(tokens)) {
+            return true;
+        }
+
+        // One Redis round trip per node at a time; callers arriving meanwhile use what it fetched
+        refillLock.lock();
+        try {
+            if (takePrefetched(tokens)) {
+                return true;
+            }
+            long granted = takeFromRedis(Math.max(tokens, Math.min(prefetch, capacity)));
+            if (granted < 0) {
+                return fallback.tryConsume(tokens);
+            }
+            long spare = granted >= tokens ? granted - tokens : granted;
+            prefetched.set(new Prefetched(spare + prefetched.get().usable(), System.nanoTime() + prefetchTtlNanos));
+            return granted >= tokens;
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    @Override
+    public long getAvailableTokens() {
+        return prefetched.get().usable() + lastKnownRemaining;
+    }
+
+    @Override
+    public long getCapacity() {
+        return capacity;
+    }
+
+    // Applies to this node's next Redis call; other nodes converge as they see the same exchange feedback
+    @Override
+    public void setCapacity(long capacity) {
+        this.capacity = capacity;
+        fallback.setCapacity(capacity);
+    }
+
+    private boolean takePrefetched(long tokens) {
+        while (true) {
+            Prefetched current = prefetched.get();
+            long usable = current.usable();
+            if (usable < tokens) {
+                return false;
+            }
+            if (prefetched.compareAndSet(current, new Prefetched(usable - tokens, current.expiresAt()))) {
+                return true;
+            }
+        }
+    }
+
+    // Returns -1 when Redis is unavailable
+    private long takeFromRedis(long wanted) {
+        try {
+            List<Long> result = redisTemplate.execute(
+                TAKE_SCRIPT,
+                List.of(key),
+                Long.toString(capacity),
+                Long.toString(period.toMillis()),
+                Long.toString(wanted));
+            lastKnownRemaining = result.get(1);
+            return result.get(0);
+        } catch (Exception e) {
+            log.warn("Shared rate limit {} unavailable, using the local limit: {}", key, e.getMessage());
+            return -1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisScript<List<Long>> takeScript() {
+        DefaultRedisScript<List<Long>> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource("redis/take-tokens.lua"));
+        script.setResultType((Class<List<Long>>) (Class<?>) List.class);
+        return script;
+    }
+
+    private record Prefetched(long tokens, long expiresAt) {
+        static final Prefetched NONE = new Prefetched(0, 0);
+
+        long usable() {
+            return System.nanoTime() - expiresAt < 0 ? tokens : 0;
+        }
+    }
+}
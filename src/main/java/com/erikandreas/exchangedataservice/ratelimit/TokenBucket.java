@@ -0,0 +1,27 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+/**
+ * Rate limit for the requests we send to one exchange.
+ */
+public interface TokenBucket {
+
+    /**
+     * Takes {@code tokens} if they are all available right now; never waits.
+     */
+    boolean tryConsume(long tokens);
+
+    /**
+     * Best-effort number of tokens that could be taken right now, for metrics.
+     */
+    long getAvailableTokens();
+
+    /**
+     * Tokens the bucket holds when full, which is also what it refills per period.
+     */
+    long getCapacity();
+
+    /**
+     * Resizes the bucket; tokens above the new capacity are dropped.
+     */
+    void setCapacity(long capacity);
+}
@@ -0,0 +1,93 @@
+package com.erikandreas.exchangedataservice.resilience;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.service.RateLimitService;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Runs upstream calls behind the exchange's circuit breaker ({@code resilience4j.circuitbreaker.instances})
+ * and rate limit. While a breaker is open calls fail at once with an {@link ExchangeException}, before
+ * taking rate limit tokens or a connection, and cached prices keep being served stale. Only the HTTP call
+ * itself is measured, so time spent waiting for a token never counts as a slow call.
+ */
+@Component
+public class ExchangeCallGuard {
+
+    private final RateLimitService rateLimitService;
+    private final Map<String, CircuitBreaker> breakers;
+
+    public ExchangeCallGuard(CircuitBreakerRegistry circuitBreakerRegistry, RateLimitService rateLimitService) {
+        this.rateLimitService = rateLimitService;
+        this.breakers = Map.of(
+            "binance", circuitBreakerRegistry.circuitBreaker("binance"),
+            "kraken", circuitBreakerRegistry.circuitBreaker("kraken")
+        );
+    }
+
+    public <T> T call(String exchange, int weight, Supplier<T> request) {
+        CircuitBreaker breaker = breaker(exchange);
+        if (!breaker.tryAcquirePermission()) {
+            throw unavailable(exchange, breaker);
+        }
+        try {
+            rateLimitService.acquire(exchange, weight);
+        } catch (RuntimeException e) {
+            breaker.releasePermission();
+            throw e;
+        }
+
+        long start = System.nanoTime();
+        try {
+            T result = request.get();
+            breaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e);
+            throw e;
+        }
+    }
+
+    public <T> Mono<T> callReactive(String exchange, int weight, Supplier<Mono<T>> request) {
+        return Mono.defer(() -> {
+            CircuitBreaker breaker = breaker(exchange);
+            if (!breaker.tryAcquirePermission()) {
+                return Mono.error(unavailable(exchange, breaker));
+            }
+            return rateLimitService.acquireReactive(exchange, weight)
+                .doOnError(e -> breaker.releasePermission())
+                .then(Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return request.get()
+                        .doOnSuccess(result -> breaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                        .doOnError(e -> breaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, e));
+                }))
+                .doOnCancel(breaker::releasePermission);
+        });
+    }
+
+    public CircuitBreaker.State getState(String exchange) {
+        return breaker(exchange).getState();
+    }
+
+    private CircuitBreaker breaker(String exchange) {
+        CircuitBreaker breaker = breakers.get(exchange.toLowerCase());
+        if (breaker == null) {
+            throw new IllegalArgumentException("No circuit breaker configured for exchange: " + exchange);
+        }
+        return breaker;
+    }
+
+    private static ExchangeException unavailable(String exchange, CircuitBreaker breaker) {
+        return new ExchangeException(
+            "Not calling " + exchange + " while its circuit breaker is open",
+            CallNotPermittedException.createCallNotPermittedException(breaker));
+    }
+}
@@ -0,0 +1,30 @@
+package com.erikandreas.exchangedataservice.resilience;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.function.Predicate;
+
+/**
+ * Decides which upstream errors count against an exchange's circuit breaker: connection failures,
+ * timeouts, 5xx responses and unreadable responses do; requests the exchange rejected (4xx such as
+ * throttling, or an unknown symbol) do not, as they say nothing about the exchange's health.
+ */
+public class UpstreamFailurePredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable e) {
+        if (!(e instanceof ExchangeException) || SymbolIndex.isUnknownSymbolError(e)) {
+            return false;
+        }
+        HttpStatusCode status = switch (e.getCause()) {
+            case RestClientResponseException response -> response.getStatusCode();
+            case WebClientResponseException response -> response.getStatusCode();
+            case null, default -> null;
+        };
+        return status == null || status.is5xxServerError();
+    }
+}
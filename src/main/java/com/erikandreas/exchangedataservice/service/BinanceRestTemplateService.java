@@ -1,54 +1,129 @@
 package com.erikandreas.exchangedataservice.service;
 
+import com.erikandreas.exchangedataservice.cache.BlockingPriceCache;
 import com.erikandreas.exchangedataservice.exception.ExchangeException;
-import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.resilience.ExchangeCallGuard;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
 import com.erikandreas.exchangedataservice.util.ResponseParser;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 @Slf4j
 public class BinanceRestTemplateService implements BlockingPriceService {
 
+    // Request weights of /ticker/price: one symbol, or a list of symbols
+    private static final int PRICE_WEIGHT = 2;
+    private static final int BATCH_WEIGHT = 4;
+
     private final RestTemplate restTemplate;
-    private final RateLimitService rateLimitService;
+    private final ExchangeCallGuard callGuard;
+    private final SymbolIndex symbolIndex;
+    private final BlockingPriceCache priceCache;
+    private final PriceBarService priceBarService;
 
-    public BinanceRestTemplateService(RateLimitService rateLimitService) {
-        this.restTemplate = new RestTemplate();
-        this.rateLimitService = rateLimitService;
+    public BinanceRestTemplateService(
+            @Qualifier("binanceRestTemplate") RestTemplate restTemplate,
+            ExchangeCallGuard callGuard,
+            SymbolIndex symbolIndex,
+            BlockingPriceCache priceCache,
+            PriceBarService priceBarService) {
+        this.restTemplate = restTemplate;
+        this.callGuard = callGuard;
+        this.symbolIndex = symbolIndex;
+        this.priceCache = priceCache;
+        this.priceBarService = priceBarService;
     }
 
     @Override
-    @Cacheable(value = "prices", key = "'binance-blocking:' + #symbol")
     public CryptoPrice getPrice(String symbol) {
-        log.info("Fetching price from Binance for symbol: {} (cache miss)", symbol);
-
-        if (!rateLimitService.tryConsume("binance")) {
-            throw new RateLimitExceededException("binance");
+        try {
+            return priceCache.get("binance", symbol, () -> fetchPrice(symbol));
+        } catch (ExchangeException e) {
+            throw symbolIndex.rejectedByExchange("binance", symbol, e);
         }
+    }
 
-        try {
-            ResponseEntity<String> response = restTemplate.getForEntity(
-                "https://api.binance.com/api/v3/ticker/price?symbol=" + symbol,
-                String.class
-            );
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                throw new ExchangeException(
-                    String.format("Binance API error: %s", response.getStatusCode()),
-                    null
+    private CryptoPrice fetchPrice(String symbol) {
+        String pair = symbolIndex.resolve("binance", symbol);
+        log.info("Fetching price from Binance for symbol: {} (cache miss)", symbol);
+
+        return callGuard.call("binance", PRICE_WEIGHT, () -> {
+            try {
+                ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                    "/ticker/price?symbol={symbol}",
+                    byte[].class,
+                    pair
                 );
+
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    throw new ExchangeException(
+                        String.format("Binance API error: %s", response.getStatusCode()),
+                        null
+                    );
+                }
+
+                CryptoPrice price = ResponseParser.parseBinanceResponse(response.getBody(), symbol);
+                priceBarService.recordAsync("binance", List.of(price));
+                return price;
+
+            } catch (RestClientException e) {
+                throw new ExchangeException("Failed to fetch price from Binance", e);
             }
+        });
+    }
+
+    @Override
+    public List<CryptoPrice> getPrices(List<String> symbols) {
+        return priceCache.getAll("binance", symbols, this::fetchPrices);
+    }
 
-            return ResponseParser.parseBinanceResponse(response.getBody(), symbol);
+    @Override
+    public List<CryptoPrice> getFreshPrices(List<String> symbols) {
+        return priceCache.getAllFresh("binance", symbols, this::fetchPrices);
+    }
 
-        } catch (RestClientException e) {
-            throw new ExchangeException("Failed to fetch price from Binance", e);
-        }
+    @Override
+    public List<CryptoPrice> refreshPrices(List<String> symbols) {
+        return priceCache.refresh("binance", symbols, this::fetchPrices);
+    }
+
+    private List<CryptoPrice> fetchPrices(List<String> symbols) {
+        String symbolsParam = symbols.stream()
+            .map(symbol -> "\"" + symbolIndex.resolve("binance", symbol) + "\"")
+            .collect(Collectors.joining(",", "[", "]"));
+        log.info("Fetching {} prices from Binance in one request (cache miss)", symbols.size());
+
+        return callGuard.call("binance", BATCH_WEIGHT, () -> {
+            try {
+                ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                    "/ticker/price?symbols={symbols}",
+                    byte[].class,
+                    symbolsParam
+                );
+
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    throw new ExchangeException(
+                        String.format("Binance API error: %s", response.getStatusCode()),
+                        null
+                    );
+                }
+
+                List<CryptoPrice> prices = ResponseParser.parseBinanceBatchResponse(response.getBody());
+                priceBarService.recordAsync("binance", prices);
+                return prices;
+
+            } catch (RestClientException e) {
+                throw new ExchangeException("Failed to fetch prices from Binance", e);
+            }
+        });
     }
 }
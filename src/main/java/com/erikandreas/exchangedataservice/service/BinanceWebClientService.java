@@ -1,56 +1,103 @@
 package com.erikandreas.exchangedataservice.service;
 
+import com.erikandreas.exchangedataservice.cache.ReactivePriceCache;
 import com.erikandreas.exchangedataservice.exception.ExchangeException;
-import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.resilience.ExchangeCallGuard;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
 import com.erikandreas.exchangedataservice.util.ResponseParser;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 @Service
 @Slf4j
 public class BinanceWebClientService implements ReactivePriceService {
 
+    // Request weights of /ticker/price: one symbol, or a list of symbols
+    private static final int PRICE_WEIGHT = 2;
+    private static final int BATCH_WEIGHT = 4;
+
     private final WebClient webClient;
-    private final RateLimitService rateLimitService;
+    private final ExchangeCallGuard callGuard;
+    private final SymbolIndex symbolIndex;
+    private final ReactivePriceCache priceCache;
+    private final PriceBarService priceBarService;
 
     public BinanceWebClientService(
             @Qualifier("binanceWebClient") WebClient webClient,
-            RateLimitService rateLimitService) {
+            ExchangeCallGuard callGuard,
+            SymbolIndex symbolIndex,
+            ReactivePriceCache priceCache,
+            PriceBarService priceBarService) {
         this.webClient = webClient;
-        this.rateLimitService = rateLimitService;
+        this.callGuard = callGuard;
+        this.symbolIndex = symbolIndex;
+        this.priceCache = priceCache;
+        this.priceBarService = priceBarService;
     }
 
     @Override
-    @Cacheable(value = "prices", key = "'binance-reactive:' + #symbol")
     public Mono<CryptoPrice> getPrice(String symbol) {
-        return Mono.fromSupplier(() -> rateLimitService.tryConsume("binance"))
-            .flatMap(canProceed -> {
-                if (!canProceed) {
-                    return Mono.error(new RateLimitExceededException("binance"));
-                }
-
-                log.info("Fetching price from Binance for symbol: {} (cache miss)", symbol);
-
-                return webClient.get()
-                    .uri("/ticker/price?symbol={symbol}", symbol)
-                    .retrieve()
-                    .onStatus(
-                        status -> status.is4xxClientError() || status.is5xxServerError(),
-                        response -> Mono.error(
-                            new ExchangeException(
-                                "Binance API error: " + response.statusCode(),
-                                null
-                            )
-                        )
+        return Mono.fromCallable(() -> symbolIndex.resolve("binance", symbol))
+            .flatMap(pair -> priceCache.get("binance", symbol, () -> fetchPrice(symbol, pair)))
+            .onErrorMap(ExchangeException.class, e -> symbolIndex.rejectedByExchange("binance", symbol, e));
+    }
+
+    private Mono<CryptoPrice> fetchPrice(String symbol, String pair) {
+        return callGuard.callReactive("binance", PRICE_WEIGHT, () -> {
+            log.info("Fetching price from Binance for symbol: {} (cache miss)", symbol);
+
+            return webClient.get()
+                .uri("/ticker/price?symbol={symbol}", pair)
+                .retrieve()
+                .onStatus(
+                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                    response -> response.createException().map(
+                        e -> new ExchangeException("Binance API error: " + response.statusCode(), e)
+                    )
+                )
+                .bodyToMono(byte[].class)
+                .onErrorMap(WebClientRequestException.class, e -> new ExchangeException("Failed to fetch price from Binance", e))
+                .map(response -> ResponseParser.parseBinanceResponse(response, symbol))
+                .doOnNext(price -> priceBarService.recordAsync("binance", List.of(price)))
+                .doOnError(error -> log.error("Error fetching from Binance: {}", error.getMessage()));
+        });
+    }
+
+    @Override
+    public Mono<List<CryptoPrice>> getPrices(List<String> symbols) {
+        return Mono.fromRunnable(() -> symbols.forEach(symbol -> symbolIndex.resolve("binance", symbol)))
+            .then(Mono.defer(() -> priceCache.getAll("binance", symbols, this::fetchPrices)));
+    }
+
+    private Mono<List<CryptoPrice>> fetchPrices(List<String> symbols) {
+        return callGuard.callReactive("binance", BATCH_WEIGHT, () -> {
+            log.info("Fetching {} prices from Binance in one request (cache miss)", symbols.size());
+            String symbolsParam = symbols.stream()
+                .map(symbol -> "\"" + symbolIndex.resolve("binance", symbol) + "\"")
+                .collect(Collectors.joining(",", "[", "]"));
+
+            return webClient.get()
+                .uri("/ticker/price?symbols={symbols}", symbolsParam)
+                .retrieve()
+                .onStatus(
+                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                    response -> response.createException().map(
+                        e -> new ExchangeException("Binance API error: " + response.statusCode(), e)
                     )
-                    .bodyToMono(String.class)
-                    .map(response -> ResponseParser.parseBinanceResponse(response, symbol))
-                    .doOnError(error -> log.error("Error fetching from Binance: {}", error.getMessage()));
-            });
+                )
+                .bodyToMono(byte[].class)
+                .onErrorMap(WebClientRequestException.class, e -> new ExchangeException("Failed to fetch prices from Binance", e))
+                .map(ResponseParser::parseBinanceBatchResponse)
+                .doOnNext(prices -> priceBarService.recordAsync("binance", prices))
+                .doOnError(error -> log.error("Error fetching from Binance: {}", error.getMessage()));
+        });
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,22 @@ package com.erikandreas.exchangedataservice.service;
 
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
 
+import java.util.List;
+
 public interface BlockingPriceService {
     CryptoPrice getPrice(String symbol);
+
+    List<CryptoPrice> getPrices(List<String> symbols);
+
+    /**
+     * Like {@link #getPrices}, but stale cached prices are fetched again (with the missing ones) rather than
+     * served, for callers that record the prices as samples.
+     */
+    List<CryptoPrice> getFreshPrices(List<String> symbols);
+
+    /**
+     * Fetches {@code symbols} from the exchange in one request and caches them, even if cached prices are
+     * still fresh.
+     */
+    List<CryptoPrice> refreshPrices(List<String> symbols);
 }
@@ -0,0 +1,161 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.exception.InvalidSymbolException;
+import com.erikandreas.exchangedataservice.model.ConsolidatedPrice;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Asks every exchange for a symbol at once and consolidates whatever answers within the deadline, so the
+ * latency is bounded by the deadline rather than by the slowest exchange.
+ */
+@Service
+@Slf4j
+public class ConsolidatedPriceService {
+
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+
+    private final Map<String, ReactivePriceService> priceServices;
+    private final SymbolIndex symbolIndex;
+    private final Duration deadline;
+    private final Map<String, Map<String, Counter>> outcomes;
+
+    public ConsolidatedPriceService(
+            BinanceWebClientService binanceService,
+            KrakenWebClientService krakenService,
+            SymbolIndex symbolIndex,
+            @Value("${exchange.consolidated.deadline:500ms}") Duration deadline,
+            MeterRegistry meterRegistry) {
+        // Sorted, so venues are always listed in the same order
+        this.priceServices = new TreeMap<>(Map.of(
+            "binance", binanceService,
+            "kraken", krakenService
+        ));
+        this.symbolIndex = symbolIndex;
+        this.deadline = deadline;
+        this.outcomes = Map.of(
+            "binance", outcomeCounters(meterRegistry, "binance"),
+            "kraken", outcomeCounters(meterRegistry, "kraken")
+        );
+    }
+
+    public List<String> getExchanges() {
+        return List.copyOf(priceServices.keySet());
+    }
+
+    /**
+     * Fails with {@link InvalidSymbolException} when no exchange lists the symbol, and with
+     * {@link ExchangeException} only when no exchange returned a price in time. Exchanges that do not
+     * list the symbol are reported as missing without being asked.
+     */
+    public Mono<ConsolidatedPrice> getConsolidatedPrice(String symbol) {
+        Map<String, ReactivePriceService> listed = new TreeMap<>(priceServices);
+        listed.keySet().removeIf(exchange -> !symbolIndex.isListed(exchange, symbol));
+        if (listed.isEmpty()) {
+            return Mono.error(new InvalidSymbolException("Symbol " + symbol + " is not listed on any exchange"));
+        }
+        return Flux.fromIterable(listed.entrySet())
+            .flatMap(entry -> fetch(entry.getKey(), entry.getValue(), symbol))
+            .collectList()
+            .flatMap(results -> {
+                Map<String, CryptoPrice> prices = new TreeMap<>();
+                results.forEach(result -> result.price().ifPresent(price -> prices.put(result.exchange(), price)));
+                if (prices.isEmpty()) {
+                    return Mono.error(new ExchangeException(
+                        "No exchange returned a price for " + symbol + " within " + deadline.toMillis() + " ms", null));
+                }
+                List<String> missing = priceServices.keySet().stream()
+                    .filter(exchange -> !prices.containsKey(exchange))
+                    .toList();
+                return Mono.just(consolidate(symbol, prices, missing));
+            });
+    }
+
+    private Mono<Result> fetch(String exchange, ReactivePriceService service, String symbol) {
+        Map<String, Counter> counters = outcomes.get(exchange);
+        return Mono.defer(() -> service.getPrice(symbol))
+            .timeout(deadline)
+            .map(price -> {
+                counters.get("included").increment();
+                return new Result(exchange, Optional.of(price));
+            })
+            .onErrorResume(e -> {
+                counters.get(e instanceof TimeoutException ? "timeout" : "failure").increment();
+                log.debug("Leaving {} out of the consolidated {} price: {}", exchange, symbol, e.toString());
+                return Mono.just(new Result(exchange, Optional.empty()));
+            });
+    }
+
+    static ConsolidatedPrice consolidate(String symbol, Map<String, CryptoPrice> pricesByExchange, List<String> missing) {
+        List<CryptoPrice> prices = List.copyOf(pricesByExchange.values());
+        List<BigDecimal> sorted = prices.stream()
+            .map(CryptoPrice::getPrice)
+            .sorted()
+            .toList();
+        int middle = sorted.size() / 2;
+        BigDecimal median = sorted.size() % 2 == 1
+            ? sorted.get(middle)
+            : sorted.get(middle - 1).add(sorted.get(middle)).divide(TWO);
+        BigDecimal min = sorted.get(0);
+        BigDecimal max = sorted.get(sorted.size() - 1);
+
+        // Best bid is the highest anyone will pay, best ask the lowest anyone will sell for
+        Optional<CryptoPrice> bestBid = prices.stream()
+            .filter(price -> price.getBid() != null)
+            .max(Comparator.comparing(CryptoPrice::getBid));
+        Optional<CryptoPrice> bestAsk = prices.stream()
+            .filter(price -> price.getAsk() != null)
+            .min(Comparator.comparing(CryptoPrice::getAsk));
+
+        return ConsolidatedPrice.builder()
+            .symbol(symbol)
+            .median(median)
+            .min(min)
+            .max(max)
+            .spread(max.subtract(min))
+            .bestBid(bestBid.map(CryptoPrice::getBid).orElse(null))
+            .bestBidExchange(bestBid.map(CryptoPrice::getExchange).orElse(null))
+            .bestAsk(bestAsk.map(CryptoPrice::getAsk).orElse(null))
+            .bestAskExchange(bestAsk.map(CryptoPrice::getExchange).orElse(null))
+            .exchanges(List.copyOf(pricesByExchange.keySet()))
+            .missing(missing)
+            .prices(prices)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+
+    private static Map<String, Counter> outcomeCounters(MeterRegistry registry, String exchange) {
+        return Map.of(
+            "included", outcomeCounter(registry, exchange, "included"),
+            "timeout", outcomeCounter(registry, exchange, "timeout"),
+            "failure", outcomeCounter(registry, exchange, "failure")
+        );
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String exchange, String outcome) {
+        return Counter.builder("price.consolidated.venues")
+            .tags("exchange", exchange, "outcome", outcome)
+            .register(registry);
+    }
+
+    private record Result(String exchange, Optional<CryptoPrice> price) {
+    }
+}
@@ -1,129 +1,193 @@
 package com.erikandreas.exchangedataservice.service;
 
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.DailyAverageSeries;
 import com.erikandreas.exchangedataservice.model.DailyPriceAverage;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
-
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Daily average price per exchange/symbol. Each sample is added to a Redis hash holding the running sum
+ * (as an integer at {@link #SUM_SCALE} decimals) and count, so updates from any number of nodes are
+ * atomic script calls, pipelined per batch; the mean is computed when it is read.
+ */
 @Service
 @Slf4j
 public class DailyAveragePriceService {
 
+    static final int SUM_SCALE = 8;
+    // Averages stored before the running sum expired 2 days after their last update
+    private static final int LEGACY_RETENTION_DAYS = 2;
+
+    private static final RedisScript<Long> ACCUMULATE_SCRIPT =
+        RedisScript.of(new ClassPathResource("redis/accumulate-daily-average.lua"), Long.class);
+
     private final StringRedisTemplate redisTemplate;
-    private final BinanceRestTemplateService binanceService;
-    private final KrakenRestTemplateService krakenService;
-    private final ObjectMapper objectMapper;
+    private final RedisTemplate<String, Object> legacyRedisTemplate;
+    private final Duration retention;
 
     public DailyAveragePriceService(
             StringRedisTemplate redisTemplate,
-            BinanceRestTemplateService binanceService,
-            KrakenRestTemplateService krakenService,
-            ObjectMapper objectMapper) {
+            @Qualifier("priceRedisTemplate") RedisTemplate<String, Object> legacyRedisTemplate,
+            @Value("${daily-average.retention:400d}") Duration retention) {
         this.redisTemplate = redisTemplate;
-        this.binanceService = binanceService;
-        this.krakenService = krakenService;
-        this.objectMapper = objectMapper;
+        this.legacyRedisTemplate = legacyRedisTemplate;
+        this.retention = retention;
     }
 
     private String buildRedisKey(String exchange, String symbol, LocalDate date) {
+        return String.format("daily:agg:%s:%s:%s", exchange, symbol, date);
+    }
+
+    // Averages stored as a whole object before the running sum existed; read until they expire
+    private String buildLegacyRedisKey(String exchange, String symbol, LocalDate date) {
         return String.format("daily:avg:%s:%s:%s", exchange, symbol, date);
     }
 
-    public void updateDailyAverage(String exchange, String symbol) {
-        try {
-            LocalDate today = LocalDate.now();
-            String redisKey = buildRedisKey(exchange, symbol, today);
-
-            // Try to get existing average
-            DailyPriceAverage currentAvg = getCurrentAverage(redisKey);
-
-            // Get current price
-            CryptoPrice currentPrice = fetchCurrentPrice(exchange, symbol);
-
-            // Calculate new average
-            DailyPriceAverage newAvg;
-            if (currentAvg == null) {
-                newAvg = DailyPriceAverage.builder()
-                    .symbol(symbol)
-                    .exchange(exchange)
-                    .averagePrice(currentPrice.getPrice())
-                    .date(today)
-                    .numberOfUpdates(1)
-                    .build();
-            } else {
-                BigDecimal newAveragePrice = calculateNewAverage(
-                    currentAvg.getAveragePrice(),
-                    currentPrice.getPrice(),
-                    currentAvg.getNumberOfUpdates()
-                );
-
-                newAvg = DailyPriceAverage.builder()
-                    .symbol(symbol)
-                    .exchange(exchange)
-                    .averagePrice(newAveragePrice)
-                    .date(today)
-                    .numberOfUpdates(currentAvg.getNumberOfUpdates() + 1)
-                    .build();
+    /**
+     * Adds one sample per price to today's aggregates. All script calls go out in a single pipeline.
+     */
+    public void recordPrices(String exchange, List<CryptoPrice> prices) {
+        if (prices.isEmpty()) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        byte[] script = ACCUMULATE_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        byte[] expiry = Long.toString(retention.toMillis()).getBytes(StandardCharsets.UTF_8);
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (CryptoPrice price : prices) {
+                connection.scriptingCommands().eval(
+                    script,
+                    ReturnType.INTEGER,
+                    1,
+                    buildRedisKey(exchange, price.getSymbol(), today).getBytes(StandardCharsets.UTF_8),
+                    Long.toString(price.getFixedPrice().toUnscaled(SUM_SCALE)).getBytes(StandardCharsets.UTF_8),
+                    expiry);
             }
+            return null;
+        });
+        log.debug("Recorded {} {} prices for the daily averages", prices.size(), exchange);
+    }
 
-            // Store updated average
-            storeDailyAverage(redisKey, newAvg);
-
-            log.info("Updated daily average for {}/{}: {}", exchange, symbol, newAvg.getAveragePrice());
-
-        } catch (Exception e) {
-            log.error("Error updating daily average for {}/{}: {}", exchange, symbol, e.getMessage());
+    public DailyPriceAverage getDailyAverage(String exchange, String symbol, LocalDate date) {
+        DailyAverageSeries.Point point = getDailyAverages(exchange, List.of(symbol), date, date).get(0).getPoints().get(0);
+        if (point.getNumberOfUpdates() == 0) {
+            return null;
         }
+
+        return DailyPriceAverage.builder()
+            .symbol(symbol)
+            .exchange(exchange)
+            .averagePrice(point.getAveragePrice())
+            .date(date)
+            .numberOfUpdates(point.getNumberOfUpdates())
+            .build();
     }
 
-    private DailyPriceAverage getCurrentAverage(String redisKey) {
-        try {
-            String storedJson = redisTemplate.opsForValue().get(redisKey);
-            if (storedJson == null) {
-                return null;
+    /**
+     * Dense per-day series for each symbol over {@code [from, to]}. All aggregates are read in one pipeline;
+     * days without data are returned as points without an average.
+     */
+    public List<DailyAverageSeries> getDailyAverages(String exchange, List<String> symbols, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = from.datesUntil(to.plusDays(1)).toList();
+        byte[] sumField = "sum".getBytes(StandardCharsets.UTF_8);
+        byte[] countField = "count".getBytes(StandardCharsets.UTF_8);
+
+        List<Object> aggregates = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String symbol : symbols) {
+                for (LocalDate date : dates) {
+                    connection.hashCommands().hMGet(
+                        buildRedisKey(exchange, symbol, date).getBytes(StandardCharsets.UTF_8), sumField, countField);
+                }
             }
-            return objectMapper.readValue(storedJson, DailyPriceAverage.class);
-        } catch (Exception e) {
-            log.error("Error reading daily average from Redis: {}", e.getMessage());
             return null;
+        });
+        Map<String, DailyPriceAverage> legacyAverages = getLegacyAverages(exchange, symbols, dates);
+
+        List<DailyAverageSeries> series = new ArrayList<>(symbols.size());
+        Iterator<Object> results = aggregates.iterator();
+        for (String symbol : symbols) {
+            List<DailyAverageSeries.Point> points = new ArrayList<>(dates.size());
+            for (LocalDate date : dates) {
+                List<?> aggregate = (List<?>) results.next();
+                long sum = aggregate.get(0) != null ? Long.parseLong((String) aggregate.get(0)) : 0;
+                long count = aggregate.get(1) != null ? Long.parseLong((String) aggregate.get(1)) : 0;
+
+                DailyPriceAverage legacy = legacyAverages.get(buildLegacyRedisKey(exchange, symbol, date));
+                if (legacy != null && legacy.getAveragePrice() != null) {
+                    // Samples taken before the switch on the same day still count towards the mean
+                    sum += toScaledSum(legacy.getAveragePrice().multiply(BigDecimal.valueOf(legacy.getNumberOfUpdates())));
+                    count += legacy.getNumberOfUpdates();
+                }
+
+                points.add(new DailyAverageSeries.Point(date, count > 0 ? averageOf(sum, count) : null, (int) count));
+            }
+            series.add(DailyAverageSeries.builder()
+                .symbol(symbol)
+                .exchange(exchange)
+                .from(from)
+                .to(to)
+                .points(points)
+                .build());
         }
+        return series;
     }
 
-    private void storeDailyAverage(String redisKey, DailyPriceAverage avg) {
+    // Only the last few days can still have a legacy entry, so only those are read
+    private Map<String, DailyPriceAverage> getLegacyAverages(String exchange, List<String> symbols, List<LocalDate> dates) {
+        LocalDate oldest = LocalDate.now().minusDays(LEGACY_RETENTION_DAYS);
+        List<String> keys = new ArrayList<>();
+        for (String symbol : symbols) {
+            for (LocalDate date : dates) {
+                if (!date.isBefore(oldest)) {
+                    keys.add(buildLegacyRedisKey(exchange, symbol, date));
+                }
+            }
+        }
+        if (keys.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, DailyPriceAverage> averages = new HashMap<>();
         try {
-            String json = objectMapper.writeValueAsString(avg);
-            redisTemplate.opsForValue().set(redisKey, json);
-            // Set expiry to 2 days to ensure we keep today's data through tomorrow
-            redisTemplate.expire(redisKey, Duration.ofDays(2));
+            List<Object> values = legacyRedisTemplate.opsForValue().multiGet(keys);
+            for (int i = 0; i < keys.size(); i++) {
+                if (values != null && values.get(i) instanceof DailyPriceAverage average) {
+                    averages.put(keys.get(i), average);
+                }
+            }
         } catch (Exception e) {
-            log.error("Error storing daily average in Redis: {}", e.getMessage());
+            log.error("Error reading daily average from Redis: {}", e.getMessage());
         }
+        return averages;
     }
 
-    private CryptoPrice fetchCurrentPrice(String exchange, String symbol) {
-        return switch (exchange.toLowerCase()) {
-            case "binance" -> binanceService.getPrice(symbol);
-            case "kraken" -> krakenService.getPrice(symbol);
-            default -> throw new IllegalArgumentException("Unsupported exchange: " + exchange);
-        };
+    static long toScaledSum(BigDecimal price) {
+        return price.setScale(SUM_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
     }
 
-    private BigDecimal calculateNewAverage(BigDecimal currentAvg, BigDecimal newPrice, int currentCount) {
-        return currentAvg
-            .multiply(BigDecimal.valueOf(currentCount))
-            .add(newPrice)
-            .divide(BigDecimal.valueOf(currentCount + 1), RoundingMode.HALF_UP);
-    }
-
-    public DailyPriceAverage getDailyAverage(String exchange, String symbol, LocalDate date) {
-        String redisKey = buildRedisKey(exchange, symbol, date);
-        return getCurrentAverage(redisKey);
+    static BigDecimal averageOf(long scaledSum, long count) {
+        return BigDecimal.valueOf(scaledSum, SUM_SCALE)
+            .divide(BigDecimal.valueOf(count), SUM_SCALE, RoundingMode.HALF_UP);
     }
 }
@@ -0,0 +1,180 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Samples the configured symbol universe into the daily averages. Each exchange's symbols are fetched in
+ * batches (one upstream request and one rate-limit token per batch) on virtual threads, with at most
+ * {@code exchange.scheduler.concurrency.<exchange>} batches of an exchange in flight at once. Symbols the
+ * {@link SymbolIndex} does not list are left out, so one delisting cannot fail the rest of its batch.
+ */
+@Service
+@Slf4j
+public class DailyAverageUpdateService {
+
+    private final DailyAveragePriceService averagePriceService;
+    private final Map<String, BlockingPriceService> priceServices;
+    private final Map<String, List<String>> universe;
+    private final SymbolIndex symbolIndex;
+    // Unlisted symbols already logged, so each is reported once rather than on every run
+    private final Set<String> reportedUnlisted = ConcurrentHashMap.newKeySet();
+    private final Map<String, Semaphore> concurrencyLimits;
+    private final int batchSize;
+
+    private final Timer runTimer;
+    private final Map<String, Map<String, Counter>> outcomes;
+
+    public DailyAverageUpdateService(
+            DailyAveragePriceService averagePriceService,
+            BinanceRestTemplateService binanceService,
+            KrakenRestTemplateService krakenService,
+            @Value("${exchange.universe.binance}") List<String> binanceSymbols,
+            @Value("${exchange.universe.kraken}") List<String> krakenSymbols,
+            @Value("${exchange.scheduler.concurrency.binance:4}") int binanceConcurrency,
+            @Value("${exchange.scheduler.concurrency.kraken:1}") int krakenConcurrency,
+            @Value("${exchange.scheduler.batch-size:100}") int batchSize,
+            SymbolIndex symbolIndex,
+            MeterRegistry meterRegistry) {
+        this.averagePriceService = averagePriceService;
+        this.priceServices = Map.of(
+            "binance", binanceService,
+            "kraken", krakenService
+        );
+        this.universe = Map.of(
+            "binance", binanceSymbols,
+            "kraken", krakenSymbols
+        );
+        this.concurrencyLimits = Map.of(
+            "binance", new Semaphore(binanceConcurrency),
+            "kraken", new Semaphore(krakenConcurrency)
+        );
+        this.batchSize = batchSize;
+        this.symbolIndex = symbolIndex;
+
+        this.runTimer = Timer.builder("daily.average.run.duration").register(meterRegistry);
+        this.outcomes = Map.of(
+            "binance", outcomeCounters(meterRegistry, "binance"),
+            "kraken", outcomeCounters(meterRegistry, "kraken")
+        );
+    }
+
+    public void updateAll() {
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger rateLimited = new AtomicInteger();
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            universe.forEach((exchange, symbols) -> {
+                for (List<String> batch : batches(listed(exchange, symbols))) {
+                    executor.submit(() -> updateBatch(exchange, batch, succeeded, failed, rateLimited));
+                }
+            });
+        }
+
+        long elapsed = System.nanoTime() - start;
+        runTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        log.info("Daily average run finished in {} ms: {} updated, {} failed, {} skipped (rate limit)",
+            elapsed / 1_000_000, succeeded.get(), failed.get(), rateLimited.get());
+    }
+
+    private void updateBatch(
+            String exchange,
+            List<String> symbols,
+            AtomicInteger succeeded,
+            AtomicInteger failed,
+            AtomicInteger rateLimited) {
+        Semaphore limit = concurrencyLimits.get(exchange);
+        Map<String, Counter> counters = outcomes.get(exchange);
+        try {
+            limit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            // Scheduled refreshes queue behind user requests for rate limit tokens. Stale prices are fetched
+            // again: recording one would count the previous run's price as a new sample
+            List<CryptoPrice> prices = Priority.callAs(Priority.BACKGROUND, () -> priceServices.get(exchange).getFreshPrices(symbols));
+            averagePriceService.recordPrices(exchange, prices);
+
+            int missing = symbols.size() - prices.size();
+            succeeded.addAndGet(prices.size());
+            failed.addAndGet(missing);
+            counters.get("success").increment(prices.size());
+            counters.get("failure").increment(missing);
+
+        } catch (RateLimitExceededException e) {
+            rateLimited.addAndGet(symbols.size());
+            counters.get("rate_limited").increment(symbols.size());
+        } catch (Exception e) {
+            log.error("Error updating daily averages for {} {} symbols: {}", symbols.size(), exchange, e.getMessage());
+            failed.addAndGet(symbols.size());
+            counters.get("failure").increment(symbols.size());
+        } finally {
+            limit.release();
+        }
+    }
+
+    private List<String> listed(String exchange, List<String> symbols) {
+        List<String> listed = new ArrayList<>(symbols.size());
+        List<String> unlisted = new ArrayList<>();
+        for (String symbol : symbols) {
+            (symbolIndex.isListed(exchange, symbol) ? listed : unlisted).add(symbol);
+        }
+        if (!unlisted.isEmpty()) {
+            outcomes.get(exchange).get("unlisted").increment(unlisted.size());
+            List<String> newlyUnlisted = unlisted.stream()
+                .filter(symbol -> reportedUnlisted.add(exchange + ":" + symbol))
+                .toList();
+            if (!newlyUnlisted.isEmpty()) {
+                log.warn("Not sampling {} {} symbols that are not listed: {}", newlyUnlisted.size(), exchange, newlyUnlisted);
+            }
+        }
+        return listed;
+    }
+
+    private List<List<String>> batches(List<String> symbols) {
+        List<List<String>> batches = new ArrayList<>();
+        for (int from = 0; from < symbols.size(); from += batchSize) {
+            batches.add(symbols.subList(from, Math.min(from + batchSize, symbols.size())));
+        }
+        return batches;
+    }
+
+    private static Map<String, Counter> outcomeCounters(MeterRegistry registry, String exchange) {
+        return Map.of(
+            "success", outcomeCounter(registry, exchange, "success"),
+            "failure", outcomeCounter(registry, exchange, "failure"),
+            "rate_limited", outcomeCounter(registry, exchange, "rate_limited"),
+            "unlisted", outcomeCounter(registry, exchange, "unlisted")
+        );
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String exchange, String outcome) {
+        return Counter.builder("daily.average.updates")
+            .tags("exchange", exchange, "outcome", outcome)
+            .register(registry);
+    }
+}
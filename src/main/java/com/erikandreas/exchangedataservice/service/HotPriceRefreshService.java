@@ -0,0 +1,115 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.cache.BlockingPriceCache;
+import com.erikandreas.exchangedataservice.cache.HotKeyTracker;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Refresh-ahead for the most requested symbols. Each run reloads, in one batch per exchange, the hot
+ * symbols whose cached price is missing or about to go stale, so they keep being served from cache.
+ * Refreshes only run while the exchange's rate limit budget has more than {@code budget-share} of its
+ * tokens to spare and are admitted at background priority; cold symbols simply expire.
+ */
+@Service
+@Slf4j
+public class HotPriceRefreshService {
+
+    private final HotKeyTracker hotKeys;
+    private final BlockingPriceCache priceCache;
+    private final RateLimitService rateLimitService;
+    private final Map<String, BlockingPriceService> priceServices;
+    private final boolean enabled;
+    private final int topN;
+    private final long minHits;
+    private final Duration ahead;
+    private final double budgetShare;
+
+    private final Map<String, Map<String, Counter>> outcomes;
+
+    public HotPriceRefreshService(
+            HotKeyTracker hotKeys,
+            BlockingPriceCache priceCache,
+            RateLimitService rateLimitService,
+            BinanceRestTemplateService binanceService,
+            KrakenRestTemplateService krakenService,
+            @Value("${cache.refresh-ahead.enabled:true}") boolean enabled,
+            @Value("${cache.refresh-ahead.top-n:20}") int topN,
+            @Value("${cache.refresh-ahead.min-hits:3}") long minHits,
+            @Value("${cache.refresh-ahead.ahead:10s}") Duration ahead,
+            @Value("${cache.refresh-ahead.budget-share:0.2}") double budgetShare,
+            MeterRegistry meterRegistry) {
+        this.hotKeys = hotKeys;
+        this.priceCache = priceCache;
+        this.rateLimitService = rateLimitService;
+        this.priceServices = Map.of(
+            "binance", binanceService,
+            "kraken", krakenService
+        );
+        this.enabled = enabled;
+        this.topN = topN;
+        this.minHits = minHits;
+        this.ahead = ahead;
+        this.budgetShare = budgetShare;
+
+        this.outcomes = Map.of(
+            "binance", outcomeCounters(meterRegistry, "binance"),
+            "kraken", outcomeCounters(meterRegistry, "kraken")
+        );
+    }
+
+    public void refreshHotPrices() {
+        if (!enabled) {
+            return;
+        }
+        priceServices.forEach(this::refresh);
+    }
+
+    private void refresh(String exchange, BlockingPriceService service) {
+        List<String> hot = hotKeys.top(exchange, topN, minHits);
+        if (hot.isEmpty()) {
+            return;
+        }
+        List<String> due = priceCache.dueForRefresh(exchange, hot, ahead);
+        if (due.isEmpty()) {
+            return;
+        }
+
+        Map<String, Counter> counters = outcomes.get(exchange);
+        if (!rateLimitService.hasSpareCapacity(exchange, budgetShare)) {
+            counters.get("skipped").increment(due.size());
+            log.debug("Not refreshing {} hot {} prices: rate limit budget is in use", due.size(), exchange);
+            return;
+        }
+
+        try {
+            List<?> refreshed = Priority.callAs(Priority.BACKGROUND, () -> service.refreshPrices(due));
+            counters.get("success").increment(refreshed.size());
+        } catch (Exception e) {
+            counters.get("failure").increment(due.size());
+            log.warn("Refresh of {} hot {} prices failed: {}", due.size(), exchange, e.getMessage());
+        }
+    }
+
+    private static Map<String, Counter> outcomeCounters(MeterRegistry registry, String exchange) {
+        return Map.of(
+            "success", outcomeCounter(registry, exchange, "success"),
+            "skipped", outcomeCounter(registry, exchange, "skipped"),
+            "failure", outcomeCounter(registry, exchange, "failure")
+        );
+    }
+
+    private static Counter outcomeCounter(MeterRegistry registry, String exchange, String outcome) {
+        return Counter.builder("cache.refresh.ahead")
+            .tags("exchange", exchange, "outcome", outcome)
+            .register(registry);
+    }
+}
@@ -1,85 +1,131 @@
 package com.erikandreas.exchangedataservice.service;
 
+import com.erikandreas.exchangedataservice.cache.BlockingPriceCache;
 import com.erikandreas.exchangedataservice.exception.ExchangeException;
-import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
-import com.erikandreas.exchangedataservice.model.dto.KrakenTickerDTO;
+import com.erikandreas.exchangedataservice.resilience.ExchangeCallGuard;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import com.erikandreas.exchangedataservice.util.ResponseParser;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class KrakenRestTemplateService implements BlockingPriceService {
 
     private final RestTemplate restTemplate;
-    private final RateLimitService rateLimitService;
-
-    public KrakenRestTemplateService(RateLimitService rateLimitService) {
-        this.restTemplate = new RestTemplate();
-        this.rateLimitService = rateLimitService;
+    private final ExchangeCallGuard callGuard;
+    private final SymbolIndex symbolIndex;
+    private final BlockingPriceCache priceCache;
+    private final PriceBarService priceBarService;
+
+    public KrakenRestTemplateService(
+            @Qualifier("krakenRestTemplate") RestTemplate restTemplate,
+            ExchangeCallGuard callGuard,
+            SymbolIndex symbolIndex,
+            BlockingPriceCache priceCache,
+            PriceBarService priceBarService) {
+        this.restTemplate = restTemplate;
+        this.callGuard = callGuard;
+        this.symbolIndex = symbolIndex;
+        this.priceCache = priceCache;
+        this.priceBarService = priceBarService;
     }
 
     @Override
-    @Cacheable(value = "prices", key = "'kraken-blocking:' + #symbol")
     public CryptoPrice getPrice(String symbol) {
-        log.info("Fetching price from Kraken for symbol: {} (cache miss)", symbol);
-
-        if (!rateLimitService.tryConsume("kraken")) {
-            throw new RateLimitExceededException("kraken");
+        try {
+            return priceCache.get("kraken", symbol, () -> fetchPrice(symbol));
+        } catch (ExchangeException e) {
+            throw symbolIndex.rejectedByExchange("kraken", symbol, e);
         }
+    }
 
-        String krakenSymbol = convertToKrakenSymbol(symbol);
+    private CryptoPrice fetchPrice(String symbol) {
+        String krakenSymbol = symbolIndex.resolve("kraken", symbol);
+        log.info("Fetching price from Kraken for symbol: {} (cache miss)", symbol);
 
-        try {
-            ResponseEntity<KrakenTickerDTO> response = restTemplate.getForEntity(
-                "https://api.kraken.com/0/public/Ticker?pair=" + krakenSymbol,
-                KrakenTickerDTO.class
-            );
-
-            if (!response.getStatusCode().is2xxSuccessful()) {
-                throw new ExchangeException(
-                    String.format("Kraken API error: %s", response.getStatusCode()),
-                    null
+        return callGuard.call("kraken", 1, () -> {
+            try {
+                ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                    "/Ticker?pair={pair}",
+                    byte[].class,
+                    krakenSymbol
                 );
-            }
 
-            KrakenTickerDTO dto = response.getBody();
-            if (dto.getError() != null && !dto.getError().isEmpty()) {
-                throw new ExchangeException("Kraken API error: " + dto.getError().get(0), null);
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    throw new ExchangeException(
+                        String.format("Kraken API error: %s", response.getStatusCode()),
+                        null
+                    );
+                }
+
+                CryptoPrice price = ResponseParser.parseKrakenResponse(response.getBody(), Map.of(krakenSymbol, symbol)).get(0);
+                priceBarService.recordAsync("kraken", List.of(price));
+                return price;
+
+            } catch (RestClientException e) {
+                throw new ExchangeException("Failed to fetch price from Kraken", e);
             }
+        });
+    }
 
-            return mapToCryptoPrice(dto, symbol, krakenSymbol);
+    @Override
+    public List<CryptoPrice> getPrices(List<String> symbols) {
+        return priceCache.getAll("kraken", symbols, this::fetchPrices);
+    }
 
-        } catch (RestClientException e) {
-            throw new ExchangeException("Failed to fetch price from Kraken", e);
-        }
+    @Override
+    public List<CryptoPrice> getFreshPrices(List<String> symbols) {
+        return priceCache.getAllFresh("kraken", symbols, this::fetchPrices);
     }
 
-    private String convertToKrakenSymbol(String symbol) {
-        if (symbol.startsWith("BTC")) {
-            return "XBT" + symbol.substring(3);
-        }
-        return symbol;
+    @Override
+    public List<CryptoPrice> refreshPrices(List<String> symbols) {
+        return priceCache.refresh("kraken", symbols, this::fetchPrices);
     }
 
-    private CryptoPrice mapToCryptoPrice(KrakenTickerDTO dto, String originalSymbol, String krakenSymbol) {
-        KrakenTickerDTO.KrakenTickerInfo info = dto.getResult().get(krakenSymbol);
-        if (info == null || info.getAsk() == null || info.getAsk().isEmpty()) {
-            throw new ExchangeException("Invalid response format from Kraken", null);
-        }
+    private List<CryptoPrice> fetchPrices(List<String> symbols) {
+        Map<String, String> symbolsByPair = symbolsByPair(symbols);
+        String pairs = String.join(",", symbolsByPair.keySet());
+        log.info("Fetching {} prices from Kraken in one request (cache miss)", symbols.size());
+
+        return callGuard.call("kraken", 1, () -> {
+            try {
+                ResponseEntity<byte[]> response = restTemplate.getForEntity(
+                    "/Ticker?pair={pairs}",
+                    byte[].class,
+                    pairs
+                );
+
+                if (!response.getStatusCode().is2xxSuccessful()) {
+                    throw new ExchangeException(
+                        String.format("Kraken API error: %s", response.getStatusCode()),
+                        null
+                    );
+                }
+
+                List<CryptoPrice> prices = ResponseParser.parseKrakenResponse(response.getBody(), symbolsByPair);
+                priceBarService.recordAsync("kraken", prices);
+                return prices;
+
+            } catch (RestClientException e) {
+                throw new ExchangeException("Failed to fetch prices from Kraken", e);
+            }
+        });
+    }
 
-        return CryptoPrice.builder()
-            .symbol(originalSymbol)
-            .price(new BigDecimal(info.getAsk().get(0)))
-            .exchange("Kraken")
-            .timestamp(LocalDateTime.now())
-            .build();
+    private Map<String, String> symbolsByPair(List<String> symbols) {
+        Map<String, String> symbolsByPair = new LinkedHashMap<>();
+        symbols.forEach(symbol -> symbolsByPair.put(symbolIndex.resolve("kraken", symbol), symbol));
+        return symbolsByPair;
     }
-}
\ No newline at end of file
+}
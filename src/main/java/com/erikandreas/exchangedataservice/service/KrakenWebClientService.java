@@ -1,86 +1,105 @@
 package com.erikandreas.exchangedataservice.service;
 
+import com.erikandreas.exchangedataservice.cache.ReactivePriceCache;
 import com.erikandreas.exchangedataservice.exception.ExchangeException;
-import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
-import com.erikandreas.exchangedataservice.model.dto.KrakenTickerDTO;
+import com.erikandreas.exchangedataservice.resilience.ExchangeCallGuard;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import com.erikandreas.exchangedataservice.util.ResponseParser;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
 import reactor.core.publisher.Mono;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @Slf4j
 public class KrakenWebClientService implements ReactivePriceService {
 
     private final WebClient webClient;
-    private final RateLimitService rateLimitService;
+    private final ExchangeCallGuard callGuard;
+    private final SymbolIndex symbolIndex;
+    private final ReactivePriceCache priceCache;
+    private final PriceBarService priceBarService;
 
     public KrakenWebClientService(
             @Qualifier("krakenWebClient") WebClient webClient,
-            RateLimitService rateLimitService) {
+            ExchangeCallGuard callGuard,
+            SymbolIndex symbolIndex,
+            ReactivePriceCache priceCache,
+            PriceBarService priceBarService) {
         this.webClient = webClient;
-        this.rateLimitService = rateLimitService;
+        this.callGuard = callGuard;
+        this.symbolIndex = symbolIndex;
+        this.priceCache = priceCache;
+        this.priceBarService = priceBarService;
     }
 
     @Override
-    @Cacheable(value = "prices", key = "'kraken-reactive:' + #symbol")
     public Mono<CryptoPrice> getPrice(String symbol) {
-        return Mono.fromSupplier(() -> rateLimitService.tryConsume("kraken"))
-            .flatMap(canProceed -> {
-                if (!canProceed) {
-                    return Mono.error(new RateLimitExceededException("kraken"));
-                }
+        return Mono.fromCallable(() -> symbolIndex.resolve("kraken", symbol))
+            .flatMap(pair -> priceCache.get("kraken", symbol, () -> fetchPrice(symbol, pair)))
+            .onErrorMap(ExchangeException.class, e -> symbolIndex.rejectedByExchange("kraken", symbol, e));
+    }
 
-                log.info("Fetching price from Kraken for symbol: {} (cache miss)", symbol);
-                String krakenSymbol = convertToKrakenSymbol(symbol);
+    private Mono<CryptoPrice> fetchPrice(String symbol, String pair) {
+        return callGuard.callReactive("kraken", 1, () -> {
+            log.info("Fetching price from Kraken for symbol: {} (cache miss)", symbol);
 
-                return webClient.get()
-                    .uri("/Ticker?pair={symbol}", krakenSymbol)
-                    .retrieve()
-                    .onStatus(
-                        status -> status.is4xxClientError() || status.is5xxServerError(),
-                        response -> Mono.error(
-                            new ExchangeException(
-                                "Kraken API error: " + response.statusCode(),
-                                null
-                            )
-                        )
+            return webClient.get()
+                .uri("/Ticker?pair={symbol}", pair)
+                .retrieve()
+                .onStatus(
+                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                    response -> response.createException().map(
+                        e -> new ExchangeException("Kraken API error: " + response.statusCode(), e)
                     )
-                    .bodyToMono(KrakenTickerDTO.class)
-                    .map(dto -> {
-                        if (dto.getError() != null && !dto.getError().isEmpty()) {
-                            throw new ExchangeException("Kraken API error: " + dto.getError().get(0), null);
-                        }
-                        return mapToCryptoPrice(dto, symbol, krakenSymbol);
-                    })
-                    .doOnError(error -> log.error("Error fetching from Kraken: {}", error.getMessage()));
-            });
+                )
+                .bodyToMono(byte[].class)
+                .onErrorMap(WebClientRequestException.class, e -> new ExchangeException("Failed to fetch price from Kraken", e))
+                .map(response -> ResponseParser.parseKrakenResponse(response, Map.of(pair, symbol)).get(0))
+                .doOnNext(price -> priceBarService.recordAsync("kraken", List.of(price)))
+                .doOnError(error -> log.error("Error fetching from Kraken: {}", error.getMessage()));
+        });
     }
 
-    private String convertToKrakenSymbol(String symbol) {
-        if (symbol.startsWith("BTC")) {
-            return "XBT" + symbol.substring(3);
-        }
-        return symbol;
+    @Override
+    public Mono<List<CryptoPrice>> getPrices(List<String> symbols) {
+        return Mono.fromRunnable(() -> symbols.forEach(symbol -> symbolIndex.resolve("kraken", symbol)))
+            .then(Mono.defer(() -> priceCache.getAll("kraken", symbols, this::fetchPrices)));
     }
 
-    private CryptoPrice mapToCryptoPrice(KrakenTickerDTO dto, String originalSymbol, String krakenSymbol) {
-        KrakenTickerDTO.KrakenTickerInfo info = dto.getResult().get(krakenSymbol);
-        if (info == null || info.getAsk() == null || info.getAsk().isEmpty()) {
-            throw new ExchangeException("Invalid response format from Kraken", null);
-        }
+    private Mono<List<CryptoPrice>> fetchPrices(List<String> symbols) {
+        return callGuard.callReactive("kraken", 1, () -> {
+            log.info("Fetching {} prices from Kraken in one request (cache miss)", symbols.size());
+            Map<String, String> symbolsByPair = symbolsByPair(symbols);
+            String pairs = String.join(",", symbolsByPair.keySet());
+
+            return webClient.get()
+                .uri("/Ticker?pair={pairs}", pairs)
+                .retrieve()
+                .onStatus(
+                    status -> status.is4xxClientError() || status.is5xxServerError(),
+                    response -> response.createException().map(
+                        e -> new ExchangeException("Kraken API error: " + response.statusCode(), e)
+                    )
+                )
+                .bodyToMono(byte[].class)
+                .onErrorMap(WebClientRequestException.class, e -> new ExchangeException("Failed to fetch prices from Kraken", e))
+                .map(response -> ResponseParser.parseKrakenResponse(response, symbolsByPair))
+                .doOnNext(prices -> priceBarService.recordAsync("kraken", prices))
+                .doOnError(error -> log.error("Error fetching from Kraken: {}", error.getMessage()));
+        });
+    }
 
-        return CryptoPrice.builder()
-            .symbol(originalSymbol)
-            .price(new BigDecimal(info.getAsk().get(0)))
-            .exchange("Kraken")
-            .timestamp(LocalDateTime.now())
-            .build();
+    private Map<String, String> symbolsByPair(List<String> symbols) {
+        Map<String, String> symbolsByPair = new LinkedHashMap<>();
+        symbols.forEach(symbol -> symbolsByPair.put(symbolIndex.resolve("kraken", symbol), symbol));
+        return symbolsByPair;
     }
-}
\ No newline at end of file
+}
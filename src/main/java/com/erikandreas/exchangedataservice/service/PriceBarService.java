@@ -0,0 +1,161 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.model.BarInterval;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.PriceBar;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Intraday open-high-low-close bars per exchange/symbol, built incrementally from every price fetched
+ * upstream. Each interval is a Redis sorted set scored by bar start; a single script call folds a price
+ * into all intervals and trims bars older than the interval's retention.
+ */
+@Service
+@Slf4j
+public class PriceBarService {
+
+    private static final RedisScript<Long> RECORD_SCRIPT =
+        RedisScript.of(new ClassPathResource("redis/record-price-bars.lua"), Long.class);
+    private static final int PAGE_SIZE = 500;
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<BarInterval, Duration> retention;
+    private final ExecutorService recorder = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PriceBarService(
+            StringRedisTemplate redisTemplate,
+            @Value("${bars.retention.one-minute:1d}") Duration oneMinuteRetention,
+            @Value("${bars.retention.five-minutes:7d}") Duration fiveMinutesRetention,
+            @Value("${bars.retention.one-hour:90d}") Duration oneHourRetention) {
+        this.redisTemplate = redisTemplate;
+        this.retention = Map.of(
+            BarInterval.ONE_MINUTE, oneMinuteRetention,
+            BarInterval.FIVE_MINUTES, fiveMinutesRetention,
+            BarInterval.ONE_HOUR, oneHourRetention
+        );
+    }
+
+    private String buildRedisKey(String exchange, String symbol, BarInterval interval) {
+        return String.format("bars:%s:%s:%s", interval.getCode(), exchange, symbol);
+    }
+
+    /**
+     * Records prices off the caller's thread; used on the request path where a failed write must not
+     * fail the request.
+     */
+    public void recordAsync(String exchange, Collection<CryptoPrice> prices) {
+        recorder.submit(() -> {
+            try {
+                record(exchange, prices);
+            } catch (Exception e) {
+                log.warn("Error recording {} price bars: {}", exchange, e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        recorder.close();
+    }
+
+    public void record(String exchange, Collection<CryptoPrice> prices) {
+        if (prices.isEmpty()) {
+            return;
+        }
+        byte[] script = RECORD_SCRIPT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+        BarInterval[] intervals = BarInterval.values();
+
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (CryptoPrice price : prices) {
+                List<byte[]> keysAndArgs = new ArrayList<>();
+                for (BarInterval interval : intervals) {
+                    keysAndArgs.add(bytes(buildRedisKey(exchange, price.getSymbol(), interval)));
+                }
+                keysAndArgs.add(bytes(price.getFixedPrice().toPlainString()));
+                keysAndArgs.add(bytes(Long.toString(observedAt(price))));
+                for (BarInterval interval : intervals) {
+                    keysAndArgs.add(bytes(Long.toString(interval.getDuration().toMillis())));
+                    keysAndArgs.add(bytes(Long.toString(retention.get(interval).toMillis())));
+                }
+                connection.scriptingCommands().eval(
+                    script, ReturnType.INTEGER, intervals.length, keysAndArgs.toArray(byte[][]::new));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Bars starting in {@code [from, to]}, oldest first. Reads Redis page by page as the result is consumed.
+     */
+    public Flux<PriceBar> getBars(String exchange, String symbol, BarInterval interval, LocalDateTime from, LocalDateTime to) {
+        String redisKey = buildRedisKey(exchange, symbol, interval);
+        double min = toEpochMillis(from);
+        double max = toEpochMillis(to);
+
+        return Flux.<Set<String>, Long>generate(() -> 0L, (offset, sink) -> {
+                Set<String> page = redisTemplate.opsForZSet().rangeByScore(redisKey, min, max, offset, PAGE_SIZE);
+                if (page != null && !page.isEmpty()) {
+                    sink.next(page);
+                }
+                if (page == null || page.size() < PAGE_SIZE) {
+                    sink.complete();
+                }
+                return offset + PAGE_SIZE;
+            })
+            .concatMapIterable(page -> page)
+            .map(member -> parseBar(member, exchange, symbol, interval))
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    // Members are "start|open|high|low|close|count"
+    private static PriceBar parseBar(String member, String exchange, String symbol, BarInterval interval) {
+        String[] fields = member.split("\\|");
+        return PriceBar.builder()
+            .symbol(symbol)
+            .exchange(exchange)
+            .interval(interval)
+            .openTime(LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(fields[0])), ZoneId.systemDefault()))
+            .open(new BigDecimal(fields[1]))
+            .high(new BigDecimal(fields[2]))
+            .low(new BigDecimal(fields[3]))
+            .close(new BigDecimal(fields[4]))
+            .count(Long.parseLong(fields[5]))
+            .build();
+    }
+
+    private static long observedAt(CryptoPrice price) {
+        return price.getTimestamp() != null ? toEpochMillis(price.getTimestamp()) : System.currentTimeMillis();
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
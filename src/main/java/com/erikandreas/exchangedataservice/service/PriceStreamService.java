@@ -0,0 +1,114 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Live price feeds for push subscribers. Each exchange/symbol pair has at most one upstream refresh loop,
+ * shared by all of its subscribers and stopped when the last one leaves; subscribers only receive an
+ * update when the price actually changes.
+ */
+@Service
+@Slf4j
+public class PriceStreamService {
+
+    private final Map<String, ReactivePriceService> reactiveServices;
+    private final SymbolIndex symbolIndex;
+    private final Duration refreshInterval;
+    private final ConcurrentMap<String, Flux<CryptoPrice>> feeds = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> connections = Map.of(
+        "sse", new AtomicInteger(),
+        "websocket", new AtomicInteger()
+    );
+
+    public PriceStreamService(
+            BinanceWebClientService binanceReactiveService,
+            KrakenWebClientService krakenReactiveService,
+            SymbolIndex symbolIndex,
+            @Value("${exchange.push.refresh-interval:1s}") Duration refreshInterval,
+            MeterRegistry meterRegistry) {
+        this.reactiveServices = Map.of(
+            "binance", binanceReactiveService,
+            "kraken", krakenReactiveService
+        );
+        this.symbolIndex = symbolIndex;
+        this.refreshInterval = refreshInterval;
+
+        connections.forEach((transport, count) -> Gauge.builder("price.stream.connections", count, AtomicInteger::get)
+            .tag("transport", transport)
+            .register(meterRegistry));
+        Gauge.builder("price.stream.feeds", feeds, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * Merged updates for pairs in {@code exchange:SYMBOL} form. Slow subscribers only ever see the latest price
+     * of each pair, and never lose a pair's latest price to updates of the others.
+     * Pairs are validated eagerly, so a bad request fails before any stream is opened.
+     */
+    public Flux<CryptoPrice> subscribe(Collection<String> pairs, String transport) {
+        if (pairs == null || pairs.isEmpty()) {
+            throw new IllegalArgumentException("At least one exchange:symbol pair is required");
+        }
+        List<String[]> parsed = pairs.stream().distinct().map(this::parsePair).toList();
+        List<Flux<CryptoPrice>> pairFeeds = parsed.stream()
+            .map(pair -> feeds.computeIfAbsent(pair[0] + ":" + pair[1],
+                key -> refreshLoop(key, reactiveServices.get(pair[0]), pair[1])))
+            .map(Flux::onBackpressureLatest)
+            .toList();
+
+        AtomicInteger count = connections.get(transport);
+        // Prefetch 1 so merge does not queue a backlog per pair in front of each latest price
+        return Flux.merge(Flux.fromIterable(pairFeeds), pairFeeds.size(), 1)
+            .doOnSubscribe(subscription -> count.incrementAndGet())
+            .doFinally(signal -> count.decrementAndGet());
+    }
+
+    private String[] parsePair(String pair) {
+        String[] parts = pair.trim().split(":", 2);
+        if (parts.length != 2 || parts[1].isBlank()) {
+            throw new IllegalArgumentException("Invalid pair, expected exchange:SYMBOL: " + pair);
+        }
+        String exchange = parts[0].toLowerCase();
+        if (!reactiveServices.containsKey(exchange)) {
+            throw new IllegalArgumentException("Unsupported exchange: " + parts[0]);
+        }
+        return new String[]{exchange, symbolIndex.canonical(exchange, parts[1])};
+    }
+
+    private Flux<CryptoPrice> refreshLoop(String key, ReactivePriceService service, String symbol) {
+        log.info("Starting shared price feed for {}", key);
+        AtomicReference<Flux<CryptoPrice>> self = new AtomicReference<>();
+        Flux<CryptoPrice> feed = Flux.interval(Duration.ZERO, refreshInterval)
+            .onBackpressureDrop()
+            .concatMap(tick -> service.getPrice(symbol)
+                .onErrorResume(error -> {
+                    log.warn("Price refresh for {} failed: {}", key, error.getMessage());
+                    return Mono.empty();
+                }))
+            .distinctUntilChanged(CryptoPrice::getFixedPrice, (previous, next) -> previous.compareTo(next) == 0)
+            .doFinally(signal -> {
+                log.info("Stopping shared price feed for {}", key);
+                feeds.remove(key, self.get());
+            })
+            .replay(1)
+            .refCount();
+        self.set(feed);
+        return feed;
+    }
+}
@@ -1,36 +1,169 @@
 package com.erikandreas.exchangedataservice.service;
 
-import io.github.bucket4j.Bucket;
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import com.erikandreas.exchangedataservice.ratelimit.AdmissionQueue;
+import com.erikandreas.exchangedataservice.ratelimit.ExchangeRateLimiter;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
 @Slf4j
 public class RateLimitService {
-    private final Map<String, Bucket> buckets;
+    private final Map<String, ExchangeRateLimiter> limiters;
+    private final Map<String, Counter> consumed;
+    private final Map<String, Counter> rejected;
+    private final Map<String, AdmissionQueue> admissionQueues = new HashMap<>();
 
+    /**
+     * @param admissionEnabled {@code false} fails requests at once when no token is left instead of
+     *                         letting them wait in the admission queue
+     */
     public RateLimitService(
-            @Qualifier("binanceBucket") Bucket binanceBucket,
-            @Qualifier("krakenBucket") Bucket krakenBucket) {
-        this.buckets = Map.of(
-            "binance", binanceBucket,
-            "kraken", krakenBucket
+            @Qualifier("binanceRateLimiter") ExchangeRateLimiter binanceLimiter,
+            @Qualifier("krakenRateLimiter") ExchangeRateLimiter krakenLimiter,
+            @Value("${rate-limit.admission.enabled:true}") boolean admissionEnabled,
+            @Value("${rate-limit.admission.max-queued:100}") int maxQueued,
+            @Value("${rate-limit.admission.max-wait.interactive:2s}") Duration interactiveMaxWait,
+            @Value("${rate-limit.admission.max-wait.background:30s}") Duration backgroundMaxWait,
+            MeterRegistry meterRegistry) {
+        this.limiters = Map.of(
+            "binance", binanceLimiter,
+            "kraken", krakenLimiter
         );
+        this.consumed = Map.of(
+            "binance", tokenCounter(meterRegistry, "binance", "consumed"),
+            "kraken", tokenCounter(meterRegistry, "kraken", "consumed")
+        );
+        this.rejected = Map.of(
+            "binance", tokenCounter(meterRegistry, "binance", "rejected"),
+            "kraken", tokenCounter(meterRegistry, "kraken", "rejected")
+        );
+        limiters.forEach((exchange, limiter) -> Gauge.builder("rate.limit.tokens.available", limiter, ExchangeRateLimiter::getAvailableTokens)
+            .tag("exchange", exchange)
+            .register(meterRegistry));
+
+        if (admissionEnabled) {
+            Map<Priority, Duration> maxWait = Map.of(
+                Priority.INTERACTIVE, interactiveMaxWait,
+                Priority.BACKGROUND, backgroundMaxWait
+            );
+            limiters.forEach((exchange, limiter) ->
+                admissionQueues.put(exchange, new AdmissionQueue(exchange, limiter, maxQueued, maxWait, meterRegistry)));
+        }
     }
 
     public boolean tryConsume(String exchange) {
-        Bucket bucket = buckets.get(exchange.toLowerCase());
-        if (bucket == null) {
-            throw new IllegalArgumentException("No rate limit configured for exchange: " + exchange);
-        }
+        return tryConsume(exchange, 1);
+    }
+
+    /**
+     * Takes the request weight of one upstream call; bulk endpoints cost more than single-symbol ones.
+     */
+    public boolean tryConsume(String exchange, int weight) {
+        String name = exchange.toLowerCase();
+        ExchangeRateLimiter limiter = limiter(name);
 
-        boolean consumed = bucket.tryConsume(1);
-        if (!consumed) {
+        boolean consumed = limiter.tryConsume(weight);
+        if (consumed) {
+            this.consumed.get(name).increment(weight);
+        } else {
+            rejected.get(name).increment(weight);
             log.warn("Rate limit exceeded for exchange: {}", exchange);
         }
         return consumed;
     }
+
+    /**
+     * Takes {@code weight} tokens, waiting for them in line at the priority of the current thread.
+     * Blocks, so it is meant for the virtual threads serving blocking requests.
+     *
+     * @throws RateLimitExceededException when the queue is full or no token came within the wait limit
+     */
+    public void acquire(String exchange, int weight) {
+        String name = exchange.toLowerCase();
+        AdmissionQueue queue = admissionQueues.get(name);
+        if (queue == null) {
+            if (!tryConsume(name, weight)) {
+                throw new RateLimitExceededException(name, limiter(name).estimateWait(weight));
+            }
+            return;
+        }
+
+        try {
+            queue.acquire(weight, Priority.current());
+            consumed.get(name).increment(weight);
+        } catch (RateLimitExceededException e) {
+            rejected.get(name).increment(weight);
+            log.warn("Rate limit exceeded for exchange: {}", exchange);
+            throw e;
+        }
+    }
+
+    /**
+     * Non-blocking {@link #acquire}: completes once the tokens are taken, which happens off the calling
+     * thread so an event loop never waits on the (possibly shared) bucket. Waits at the priority found in
+     * the subscriber context (see {@link Priority#inContext()}).
+     */
+    public Mono<Void> acquireReactive(String exchange, int weight) {
+        String name = exchange.toLowerCase();
+        AdmissionQueue queue = admissionQueues.get(name);
+        if (queue == null) {
+            return Mono.fromRunnable(() -> acquire(name, weight));
+        }
+
+        return Mono.deferContextual(context -> Mono.fromFuture(queue.enqueue(weight, Priority.current(context))))
+            .doOnSuccess(ignored -> consumed.get(name).increment(weight))
+            .doOnError(RateLimitExceededException.class, e -> {
+                rejected.get(name).increment(weight);
+                log.warn("Rate limit exceeded for exchange: {}", exchange);
+            });
+    }
+
+    /**
+     * Whether optional work may spend tokens now: true while more than {@code 1 - share} of the budget is
+     * left, so such work never takes the last part of the bucket that user requests depend on.
+     */
+    public boolean hasSpareCapacity(String exchange, double share) {
+        ExchangeRateLimiter limiter = limiter(exchange.toLowerCase());
+        return limiter.getAvailableTokens() > limiter.getCapacity() * (1 - share);
+    }
+
+    /**
+     * Lets the limit follow the usage and throttling the exchange reports in its responses.
+     */
+    public void recordResponse(String exchange, int status, HttpHeaders headers) {
+        limiter(exchange.toLowerCase()).onResponse(status, headers);
+    }
+
+    @PreDestroy
+    public void close() {
+        admissionQueues.values().forEach(AdmissionQueue::close);
+    }
+
+    private ExchangeRateLimiter limiter(String exchange) {
+        ExchangeRateLimiter limiter = limiters.get(exchange);
+        if (limiter == null) {
+            throw new IllegalArgumentException("No rate limit configured for exchange: " + exchange);
+        }
+        return limiter;
+    }
+
+    private static Counter tokenCounter(MeterRegistry registry, String exchange, String result) {
+        return Counter.builder("rate.limit.tokens")
+            .tags("exchange", exchange, "result", result)
+            .register(registry);
+    }
 }
@@ -3,6 +3,10 @@ package com.erikandreas.exchangedataservice.service;
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 public interface ReactivePriceService {
     Mono<CryptoPrice> getPrice(String symbol);
+
+    Mono<List<CryptoPrice>> getPrices(List<String> symbols);
 }
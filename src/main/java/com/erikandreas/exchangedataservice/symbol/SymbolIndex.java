@@ -0,0 +1,183 @@
+package com.erikandreas.exchangedataservice.symbol;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.exception.InvalidSymbolException;
+import com.erikandreas.exchangedataservice.util.ValidationUtils;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientResponseException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Symbols each exchange lists, mapped to the exchange's own pair name, so unknown symbols are rejected
+ * before they cost a rate limit token or an upstream call. Each exchange's table is an immutable snapshot
+ * replaced as a whole by {@link SymbolMetadataLoader}; until an exchange's first snapshot is loaded only
+ * the symbol format is checked. Symbols the exchange itself reported as unknown are remembered for
+ * {@code negative-ttl}, covering delistings between refreshes. Where an exchange names pairs differently on
+ * its WebSocket API, those names are kept alongside.
+ */
+@Component
+@Slf4j
+public class SymbolIndex {
+
+    private volatile Map<String, Map<String, String>> pairsByExchange = Map.of();
+    private volatile Map<String, Map<String, String>> streamPairsByExchange = Map.of();
+    private final Cache<String, Boolean> unknownSymbols;
+    private final Map<String, Map<String, Counter>> rejections;
+
+    public SymbolIndex(
+            @Value("${exchange.symbols.negative-ttl:10m}") Duration negativeTtl,
+            MeterRegistry meterRegistry) {
+        this.unknownSymbols = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(negativeTtl)
+            .build();
+        this.rejections = Map.of(
+            "binance", rejectionCounters(meterRegistry, "binance"),
+            "kraken", rejectionCounters(meterRegistry, "kraken")
+        );
+    }
+
+    public void update(String exchange, Map<String, String> pairsBySymbol) {
+        update(exchange, pairsBySymbol, pairsBySymbol);
+    }
+
+    public synchronized void update(
+            String exchange,
+            Map<String, String> pairsBySymbol,
+            Map<String, String> streamPairsBySymbol) {
+        pairsByExchange = replaced(pairsByExchange, exchange, pairsBySymbol);
+        streamPairsByExchange = replaced(streamPairsByExchange, exchange, streamPairsBySymbol);
+        log.info("Loaded {} {} symbols", pairsBySymbol.size(), exchange);
+    }
+
+    public boolean isLoaded(String exchange) {
+        return pairsByExchange.containsKey(exchange);
+    }
+
+    /**
+     * Our spelling of {@code symbol} (upper case), if {@code exchange} lists it.
+     *
+     * @throws InvalidSymbolException if the symbol is malformed or not listed
+     */
+    public String canonical(String exchange, String symbol) {
+        String canonical = ValidationUtils.validateSymbol(symbol == null ? null : symbol.trim().toUpperCase());
+        Map<String, String> pairs = pairsByExchange.get(exchange);
+        if (pairs != null && !pairs.containsKey(canonical)) {
+            throw rejected(exchange, canonical, "unknown");
+        }
+        if (unknownSymbols.getIfPresent(key(exchange, canonical)) != null) {
+            throw rejected(exchange, canonical, "negative_cached");
+        }
+        return canonical;
+    }
+
+    /**
+     * The exchange's pair name for {@code symbol}, to use in upstream requests.
+     *
+     * @throws InvalidSymbolException if the symbol is malformed or not listed
+     */
+    public String resolve(String exchange, String symbol) {
+        String canonical = canonical(exchange, symbol);
+        Map<String, String> pairs = pairsByExchange.get(exchange);
+        return pairs != null ? pairs.get(canonical) : defaultPair(exchange, canonical);
+    }
+
+    /**
+     * The exchange's WebSocket pair name for {@code symbol}, or null if the exchange's symbols are not loaded
+     * yet or it does not stream the symbol.
+     */
+    public String streamPair(String exchange, String symbol) {
+        Map<String, String> pairs = streamPairsByExchange.get(exchange);
+        return pairs != null ? pairs.get(symbol) : null;
+    }
+
+    public boolean isListed(String exchange, String symbol) {
+        try {
+            canonical(exchange, symbol);
+            return true;
+        } catch (InvalidSymbolException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Turns an upstream "unknown symbol" error for a single-symbol request into an
+     * {@link InvalidSymbolException} and remembers the symbol as unknown; other errors are returned as is.
+     */
+    public RuntimeException rejectedByExchange(String exchange, String symbol, RuntimeException e) {
+        if (!isUnknownSymbolError(e)) {
+            return e;
+        }
+        unknownSymbols.put(key(exchange, symbol.toUpperCase()), Boolean.TRUE);
+        return notListed(exchange, symbol.toUpperCase());
+    }
+
+    // Binance answers 400 with code -1121, Kraken 200 with an EQuery error in the body
+    public static boolean isUnknownSymbolError(Throwable e) {
+        if (!(e instanceof ExchangeException)) {
+            return false;
+        }
+        String body = switch (e.getCause()) {
+            case RestClientResponseException response -> response.getResponseBodyAsString();
+            case WebClientResponseException response -> response.getResponseBodyAsString();
+            case null, default -> "";
+        };
+        return body.contains("\"code\":-1121")
+            || (e.getMessage() != null && e.getMessage().contains("Unknown asset pair"));
+    }
+
+    // Before the first snapshot: Kraken still calls bitcoin XBT in its REST pair names
+    private static String defaultPair(String exchange, String symbol) {
+        if ("kraken".equals(exchange) && symbol.startsWith("BTC")) {
+            return "XBT" + symbol.substring(3);
+        }
+        return symbol;
+    }
+
+    private InvalidSymbolException rejected(String exchange, String symbol, String reason) {
+        Map<String, Counter> counters = rejections.get(exchange);
+        if (counters != null) {
+            counters.get(reason).increment();
+        }
+        return notListed(exchange, symbol);
+    }
+
+    private static InvalidSymbolException notListed(String exchange, String symbol) {
+        return new InvalidSymbolException("Symbol " + symbol + " is not listed on " + exchange);
+    }
+
+    private static Map<String, Map<String, String>> replaced(
+            Map<String, Map<String, String>> byExchange, String exchange, Map<String, String> pairs) {
+        Map<String, Map<String, String>> updated = new HashMap<>(byExchange);
+        updated.put(exchange, Map.copyOf(pairs));
+        return Map.copyOf(updated);
+    }
+
+    private static String key(String exchange, String symbol) {
+        return exchange + ":" + symbol;
+    }
+
+    private static Map<String, Counter> rejectionCounters(MeterRegistry registry, String exchange) {
+        return Map.of(
+            "unknown", rejectionCounter(registry, exchange, "unknown"),
+            "negative_cached", rejectionCounter(registry, exchange, "negative_cached")
+        );
+    }
+
+    private static Counter rejectionCounter(MeterRegistry registry, String exchange, String reason) {
+        return Counter.builder("symbol.rejections")
+            .description("Requests for unknown symbols rejected without calling the exchange")
+            .tags("exchange", exchange, "reason", reason)
+            .register(registry);
+    }
+}
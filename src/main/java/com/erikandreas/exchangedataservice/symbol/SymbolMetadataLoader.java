@@ -0,0 +1,109 @@
+package com.erikandreas.exchangedataservice.symbol;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import com.erikandreas.exchangedataservice.resilience.ExchangeCallGuard;
+import com.erikandreas.exchangedataservice.util.ResponseParser;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Loads the listed symbols of each exchange into the {@link SymbolIndex}, from Binance {@code exchangeInfo}
+ * and Kraken {@code AssetPairs}, or from saved copies of those responses under {@code fixture-location}
+ * (for tests and offline runs). Loaded at startup, before the ticker streams subscribe, and every
+ * {@code refresh-interval} after that, independently of {@code exchange.scheduler.enabled}. A failed load
+ * keeps the previous snapshot.
+ */
+@Component
+@Slf4j
+public class SymbolMetadataLoader implements SmartInitializingSingleton {
+
+    // exchangeInfo without a symbol filter costs 20
+    private static final int EXCHANGE_INFO_WEIGHT = 20;
+
+    private final SymbolIndex symbolIndex;
+    private final ExchangeCallGuard callGuard;
+    private final RestTemplate binanceRestTemplate;
+    private final RestTemplate krakenRestTemplate;
+    private final ResourceLoader resourceLoader;
+    private final String fixtureLocation;
+
+    public SymbolMetadataLoader(
+            SymbolIndex symbolIndex,
+            ExchangeCallGuard callGuard,
+            @Qualifier("binanceRestTemplate") RestTemplate binanceRestTemplate,
+            @Qualifier("krakenRestTemplate") RestTemplate krakenRestTemplate,
+            ResourceLoader resourceLoader,
+            @Value("${exchange.symbols.fixture-location:}") String fixtureLocation) {
+        this.symbolIndex = symbolIndex;
+        this.callGuard = callGuard;
+        this.binanceRestTemplate = binanceRestTemplate;
+        this.krakenRestTemplate = krakenRestTemplate;
+        this.resourceLoader = resourceLoader;
+        this.fixtureLocation = fixtureLocation;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        refresh();
+    }
+
+    @Scheduled(
+        initialDelayString = "${exchange.symbols.refresh-interval:1h}",
+        fixedDelayString = "${exchange.symbols.refresh-interval:1h}")
+    public void refresh() {
+        load("binance", "binance-exchange-info.json", ResponseParser::parseBinanceSymbols, null,
+            () -> callGuard.call("binance", EXCHANGE_INFO_WEIGHT,
+                () -> fetch(binanceRestTemplate, "/exchangeInfo?symbolStatus=TRADING", "Binance")));
+        load("kraken", "kraken-asset-pairs.json", ResponseParser::parseKrakenAssetPairs, ResponseParser::parseKrakenStreamPairs,
+            () -> callGuard.call("kraken", 1, () -> fetch(krakenRestTemplate, "/AssetPairs", "Kraken")));
+    }
+
+    // streamParser is null when the exchange streams under its REST pair names
+    private void load(String exchange, String fixture, Function<byte[], Map<String, String>> parser,
+                      Function<byte[], Map<String, String>> streamParser, Supplier<byte[]> remote) {
+        try {
+            byte[] response = fixtureLocation.isEmpty()
+                ? Priority.callAs(Priority.BACKGROUND, remote)
+                : readFixture(fixture);
+            Map<String, String> pairsBySymbol = parser.apply(response);
+            if (pairsBySymbol.isEmpty()) {
+                log.warn("{} listed no symbols, keeping the previous symbol index", exchange);
+                return;
+            }
+            symbolIndex.update(exchange, pairsBySymbol,
+                streamParser != null ? streamParser.apply(response) : pairsBySymbol);
+        } catch (RuntimeException e) {
+            log.warn("Could not load {} symbols, keeping the previous symbol index: {}", exchange, e.getMessage());
+        }
+    }
+
+    private static byte[] fetch(RestTemplate restTemplate, String path, String exchange) {
+        try {
+            return restTemplate.getForObject(path, byte[].class);
+        } catch (RestClientException e) {
+            throw new ExchangeException("Failed to fetch symbols from " + exchange, e);
+        }
+    }
+
+    private byte[] readFixture(String fixture) {
+        try (InputStream in = resourceLoader.getResource(fixtureLocation + fixture).getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read symbol fixture " + fixtureLocation + fixture, e);
+        }
+    }
+}
@@ -2,42 +2,504 @@ package com.erikandreas.exchangedataservice.util;
 
 import com.erikandreas.exchangedataservice.exception.ExchangeException;
 import com.erikandreas.exchangedataservice.model.CryptoPrice;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.erikandreas.exchangedataservice.model.FixedPrice;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.experimental.UtilityClass;
 import lombok.extern.slf4j.Slf4j;
 
-import java.math.BigDecimal;
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Token-level parsers for exchange ticker responses and stream frames. They read the raw response once and pick out
+ * symbol, price, bid and ask as they stream past, without building a tree or binding to DTOs; prices are
+ * decoded straight from the parser's character buffer and all other fields are skipped.
+ */
 @UtilityClass
 @Slf4j
 public class ResponseParser {
-    private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = new JsonFactory();
 
-    public static CryptoPrice parseBinanceResponse(String response, String symbol) {
-        try {
-            JsonNode root = objectMapper.readTree(response);
-            validateBinanceResponse(root);
+    // Static utility, so the timers go to the global registry that Spring Boot adds its registries to
+    private static final Timer binanceParseTime = parseTimer("binance");
+    private static final Timer krakenParseTime = parseTimer("kraken");
 
-            return CryptoPrice.builder()
+    /**
+     * Binance {@code /ticker/price} or {@code /ticker/bookTicker} response for a single symbol.
+     */
+    public static CryptoPrice parseBinanceResponse(byte[] response, String symbol) {
+        long start = System.nanoTime();
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalidResponse("Binance");
+            }
+            CryptoPrice price = readBinanceTicker(parser, LocalDateTime.now());
+            price.setSymbol(symbol);
+            return price;
+
+        } catch (IOException e) {
+            throw new ExchangeException("Failed to parse Binance response", e);
+        } catch (NumberFormatException e) {
+            throw new ExchangeException("Invalid price format in response", e);
+        } finally {
+            binanceParseTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Binance multi-symbol response: an array of ticker objects, each carrying its own symbol.
+     */
+    public static List<CryptoPrice> parseBinanceBatchResponse(byte[] response) {
+        long start = System.nanoTime();
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw invalidResponse("Binance");
+            }
+
+            // One timestamp per response: every ticker in a snapshot was observed at the same time
+            LocalDateTime timestamp = LocalDateTime.now();
+            List<CryptoPrice> prices = new ArrayList<>();
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                CryptoPrice price = readBinanceTicker(parser, timestamp);
+                if (price.getSymbol() == null) {
+                    throw invalidResponse("Binance");
+                }
+                prices.add(price);
+            }
+            return prices;
+
+        } catch (IOException e) {
+            throw new ExchangeException("Failed to parse Binance response", e);
+        } catch (NumberFormatException e) {
+            throw new ExchangeException("Invalid price format in response", e);
+        } finally {
+            binanceParseTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Kraken {@code /Ticker} response. Prices are returned in the iteration order of {@code symbolsByPair}
+     * (Kraken pair name to our symbol); tickers for pairs we did not ask for are skipped unread.
+     */
+    public static List<CryptoPrice> parseKrakenResponse(byte[] response, Map<String, String> symbolsByPair) {
+        long start = System.nanoTime();
+        Map<String, CryptoPrice> pricesByPair = new HashMap<>();
+        LocalDateTime timestamp = LocalDateTime.now();
+        String error = null;
+
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalidResponse("Kraken");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("error".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (error == null) {
+                            error = parser.getText();
+                        }
+                        parser.skipChildren();
+                    }
+                } else if ("result".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String pair = parser.currentName();
+                        parser.nextToken();
+                        String symbol = symbolsByPair.get(pair);
+                        if (symbol == null) {
+                            parser.skipChildren();
+                        } else {
+                            pricesByPair.put(pair, readKrakenTicker(parser, symbol, timestamp));
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+        } catch (IOException e) {
+            throw new ExchangeException("Failed to parse Kraken response", e);
+        } catch (NumberFormatException e) {
+            throw new ExchangeException("Invalid price format in response", e);
+        } finally {
+            krakenParseTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (error != null) {
+            throw new ExchangeException("Kraken API error: " + error, null);
+        }
+
+        List<CryptoPrice> prices = new ArrayList<>(symbolsByPair.size());
+        for (String pair : symbolsByPair.keySet()) {
+            CryptoPrice price = pricesByPair.get(pair);
+            if (price == null) {
+                throw invalidResponse("Kraken");
+            }
+            prices.add(price);
+        }
+        return prices;
+    }
+
+    /**
+     * Binance {@code <symbol>@ticker} stream frame, priced at the last trade. Empty for frames that carry no
+     * ticker, such as subscription acks.
+     */
+    public static List<CryptoPrice> parseBinanceStreamTicker(String frame) {
+        try (JsonParser parser = jsonFactory.createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalidResponse("Binance");
+            }
+            String symbol = null;
+            FixedPrice price = null;
+            FixedPrice bid = null;
+            FixedPrice ask = null;
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "s" -> symbol = parser.getText();
+                    case "c" -> price = readDecimal(parser);
+                    case "b" -> bid = readDecimal(parser);
+                    case "a" -> ask = readDecimal(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (symbol == null || price == null) {
+                return List.of();
+            }
+
+            return List.of(CryptoPrice.builder()
                 .symbol(symbol)
-                .price(new BigDecimal(root.get("price").asText()))
+                .price(price)
+                .bid(bid)
+                .ask(ask)
                 .exchange("Binance")
                 .timestamp(LocalDateTime.now())
-                .build();
+                .build());
 
-        } catch (JsonProcessingException e) {
-            throw new ExchangeException("Failed to parse Binance response", e);
+        } catch (IOException e) {
+            throw new ExchangeException("Failed to parse Binance ticker frame", e);
         } catch (NumberFormatException e) {
-            throw new ExchangeException("Invalid price format in response", e);
+            throw new ExchangeException("Invalid price format in Binance ticker frame", e);
         }
     }
 
-    private static void validateBinanceResponse(JsonNode root) {
-        if (!root.has("price")) {
-            throw new ExchangeException("Invalid response format from Binance", null);
+    /**
+     * Kraken WebSocket v2 message; ticker channel entries for pairs in {@code symbolsByPair} (v2 pair name
+     * such as {@code BTC/USD} to our symbol) are returned, priced at the best ask. Empty for heartbeats,
+     * status messages and acks.
+     */
+    public static List<CryptoPrice> parseKrakenStreamMessage(String frame, Map<String, String> symbolsByPair) {
+        try (JsonParser parser = jsonFactory.createParser(frame)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalidResponse("Kraken");
+            }
+            LocalDateTime timestamp = LocalDateTime.now();
+            String channel = null;
+            List<CryptoPrice> prices = new ArrayList<>();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("channel".equals(field)) {
+                    channel = parser.getText();
+                } else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (parser.currentToken() != JsonToken.START_OBJECT) {
+                            parser.skipChildren();
+                            continue;
+                        }
+                        CryptoPrice price = readKrakenStreamTicker(parser, symbolsByPair, timestamp);
+                        if (price != null) {
+                            prices.add(price);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return "ticker".equals(channel) ? prices : List.of();
+
+        } catch (IOException e) {
+            throw new ExchangeException("Failed to parse Kraken ticker message", e);
+        } catch (NumberFormatException e) {
+            throw new ExchangeException("Invalid price format in Kraken ticker message", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Binance {@code /exchangeInfo} response: symbols that are currently trading. Binance pairs are named
+     * like ours, so each symbol maps to itself.
+     */
+    public static Map<String, String> parseBinanceSymbols(byte[] response) {
+        Map<String, String> pairsBySymbol = new HashMap<>();
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalidResponse("Binance");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (!"symbols".equals(field) || value != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    String symbol = null;
+                    String status = null;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String symbolField = parser.currentName();
+                        parser.nextToken();
+                        switch (symbolField) {
+                            case "symbol" -> symbol = parser.getText();
+                            case "status" -> status = parser.getText();
+                            default -> parser.skipChildren();
+                        }
+                    }
+                    if (symbol != null && "TRADING".equals(status)) {
+                        pairsBySymbol.put(symbol, symbol);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ExchangeException("Failed to parse Binance exchange info", e);
+        }
+        return pairsBySymbol;
+    }
+
+    /**
+     * Kraken {@code /AssetPairs} response: our symbol (BTCUSDT) to Kraken's pair name (XBTUSDT, XXBTZUSD).
+     * Symbols are derived from the {@code wsname} (XBT/USDT) with Kraken's legacy asset codes translated.
+     */
+    public static Map<String, String> parseKrakenAssetPairs(byte[] response) {
+        return parseKrakenAssetPairs(response, false);
+    }
+
+    /**
+     * Kraken {@code /AssetPairs} response: our symbol (BTCUSDT) to its WebSocket v2 pair name (BTC/USDT).
+     */
+    public static Map<String, String> parseKrakenStreamPairs(byte[] response) {
+        return parseKrakenAssetPairs(response, true);
+    }
+
+    private static Map<String, String> parseKrakenAssetPairs(byte[] response, boolean streamPairs) {
+        Map<String, String> pairsBySymbol = new HashMap<>();
+        String error = null;
+        try (JsonParser parser = jsonFactory.createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw invalidResponse("Kraken");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("error".equals(field) && value == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (error == null) {
+                            error = parser.getText();
+                        }
+                        parser.skipChildren();
+                    }
+                } else if ("result".equals(field) && value == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String pair = parser.currentName();
+                        parser.nextToken();
+                        String streamPair = readKrakenStreamPair(parser);
+                        if (streamPair != null) {
+                            pairsBySymbol.putIfAbsent(streamPair.replace("/", ""), streamPairs ? streamPair : pair);
+                        }
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new ExchangeException("Failed to parse Kraken asset pairs", e);
+        }
+
+        if (error != null) {
+            throw new ExchangeException("Kraken API error: " + error, null);
+        }
+        return pairsBySymbol;
+    }
+
+    // Reads the remaining fields of the current object; the parser is left on its END_OBJECT
+    private static CryptoPrice readBinanceTicker(JsonParser parser, LocalDateTime timestamp) throws IOException {
+        String symbol = null;
+        FixedPrice price = null;
+        FixedPrice bid = null;
+        FixedPrice ask = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "symbol" -> symbol = parser.getText();
+                case "price" -> price = readDecimal(parser);
+                case "bidPrice" -> bid = readDecimal(parser);
+                case "askPrice" -> ask = readDecimal(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        // bookTicker responses have no last price; fall back to the best ask like Kraken does
+        if (price == null) {
+            price = ask;
+        }
+        if (price == null) {
+            throw invalidResponse("Binance");
+        }
+
+        return CryptoPrice.builder()
+            .symbol(symbol)
+            .price(price)
+            .bid(bid)
+            .ask(ask)
+            .exchange("Binance")
+            .timestamp(timestamp)
+            .build();
+    }
+
+    // Kraken tickers hold arrays such as "a":[price, whole lot volume, lot volume]; only the prices are read
+    private static CryptoPrice readKrakenTicker(JsonParser parser, String symbol, LocalDateTime timestamp)
+            throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw invalidResponse("Kraken");
+        }
+        FixedPrice bid = null;
+        FixedPrice ask = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "a" -> ask = readFirstDecimal(parser);
+                case "b" -> bid = readFirstDecimal(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (ask == null) {
+            throw invalidResponse("Kraken");
+        }
+
+        return CryptoPrice.builder()
+            .symbol(symbol)
+            .price(ask)
+            .bid(bid)
+            .ask(ask)
+            .exchange("Kraken")
+            .timestamp(timestamp)
+            .build();
+    }
+
+    // Null for pairs we do not stream or entries without an ask; the parser is left on the entry's END_OBJECT
+    private static CryptoPrice readKrakenStreamTicker(
+            JsonParser parser, Map<String, String> symbolsByPair, LocalDateTime timestamp) throws IOException {
+        String pair = null;
+        FixedPrice bid = null;
+        FixedPrice ask = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "symbol" -> pair = parser.getText();
+                case "bid" -> bid = readDecimal(parser);
+                case "ask" -> ask = readDecimal(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        String symbol = pair != null ? symbolsByPair.get(pair) : null;
+        if (symbol == null || ask == null) {
+            return null;
+        }
+        return CryptoPrice.builder()
+            .symbol(symbol)
+            .price(ask)
+            .bid(bid)
+            .ask(ask)
+            .exchange("Kraken")
+            .timestamp(timestamp)
+            .build();
+    }
+
+    // The wsname with legacy asset codes translated (XBT/USDT -> BTC/USDT), as the v2 WebSocket API names
+    // pairs; null for pairs that cannot be traded or have no WebSocket name (such as dark pool pairs)
+    private static String readKrakenStreamPair(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw invalidResponse("Kraken");
+        }
+        String wsname = null;
+        String status = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "wsname" -> wsname = parser.getText();
+                case "status" -> status = parser.getText();
+                default -> parser.skipChildren();
+            }
+        }
+
+        int slash = wsname != null ? wsname.indexOf('/') : -1;
+        if (slash < 0 || (status != null && !"online".equals(status))) {
+            return null;
+        }
+        return krakenAsset(wsname.substring(0, slash)) + "/" + krakenAsset(wsname.substring(slash + 1));
+    }
+
+    private static String krakenAsset(String asset) {
+        return switch (asset) {
+            case "XBT" -> "BTC";
+            case "XDG" -> "DOGE";
+            default -> asset;
+        };
+    }
+
+    private static FixedPrice readFirstDecimal(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            return readDecimal(parser);
+        }
+        FixedPrice first = null;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (first == null) {
+                first = readDecimal(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return first;
+    }
+
+    // Prices come as JSON strings (or numbers on Kraken's stream); decode them from the parser buffer without
+    // creating a String or BigDecimal
+    private static FixedPrice readDecimal(JsonParser parser) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING, VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> FixedPrice.parse(
+                parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            default -> throw new NumberFormatException("Not a decimal: " + parser.currentToken());
+        };
+    }
+
+    private static Timer parseTimer(String exchange) {
+        return Timer.builder("price.parse")
+            .description("Time to parse an exchange ticker response")
+            .tag("exchange", exchange)
+            .register(Metrics.globalRegistry);
+    }
+
+    private static ExchangeException invalidResponse(String exchange) {
+        return new ExchangeException("Invalid response format from " + exchange, null);
+    }
+}
@@ -7,7 +7,7 @@ import java.util.regex.Pattern;
 
 @UtilityClass
 public class ValidationUtils {
-    private static final Pattern SYMBOL_PATTERN = Pattern.compile("^[A-Z]{2,8}$");
+    private static final Pattern SYMBOL_PATTERN = Pattern.compile("^[A-Z0-9]{2,20}$");
 
     public static String validateSymbol(String symbol) {
         if (symbol == null || symbol.trim().isEmpty()) {
@@ -15,7 +15,7 @@ public class ValidationUtils {
         }
         if (!SYMBOL_PATTERN.matcher(symbol).matches()) {
             throw new InvalidSymbolException(
-                String.format("Symbol '%s' must be 2-8 uppercase letters", symbol)
+                String.format("Symbol '%s' must be 2-20 uppercase letters or digits", symbol)
             );
         }
         return symbol;
@@ -0,0 +1,6 @@
+-- Adds one price sample to a daily aggregate and refreshes its expiry in a single atomic step.
+-- KEYS[1] aggregate hash, ARGV[1] price scaled to an integer, ARGV[2] expiry in milliseconds
+local count = redis.call('HINCRBY', KEYS[1], 'count', 1)
+redis.call('HINCRBY', KEYS[1], 'sum', ARGV[1])
+redis.call('PEXPIRE', KEYS[1], ARGV[2])
+return count
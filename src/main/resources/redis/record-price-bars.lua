@@ -0,0 +1,28 @@
+-- Folds one observed price into the current bar of every interval, atomically.
+-- Each KEYS[i] is a sorted set of bars scored by bucket start; members are "start|open|high|low|close|count".
+-- ARGV[1] price, ARGV[2] observation time (epoch millis), then per key: interval millis, retention millis
+local price = ARGV[1]
+local value = tonumber(price)
+local observedAt = tonumber(ARGV[2])
+
+for i, key in ipairs(KEYS) do
+    local interval = tonumber(ARGV[1 + 2 * i])
+    local retention = tonumber(ARGV[2 + 2 * i])
+    local bucket = observedAt - (observedAt % interval)
+    local start = string.format('%d', bucket)
+
+    local member = start .. '|' .. price .. '|' .. price .. '|' .. price .. '|' .. price .. '|1'
+    local existing = redis.call('ZRANGEBYSCORE', key, start, start, 'LIMIT', 0, 1)[1]
+    if existing then
+        local open, high, low, _, count = string.match(existing, '^[^|]+|([^|]+)|([^|]+)|([^|]+)|([^|]+)|([^|]+)$')
+        if value > tonumber(high) then high = price end
+        if value < tonumber(low) then low = price end
+        member = start .. '|' .. open .. '|' .. high .. '|' .. low .. '|' .. price .. '|' .. (tonumber(count) + 1)
+        redis.call('ZREM', key, existing)
+    end
+
+    redis.call('ZADD', key, start, member)
+    redis.call('ZREMRANGEBYSCORE', key, '-inf', '(' .. string.format('%d', bucket - retention))
+    redis.call('PEXPIRE', key, retention + interval)
+end
+return #KEYS
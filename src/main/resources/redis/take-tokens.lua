@@ -0,0 +1,26 @@
+-- Takes up to ARGV[3] tokens from a token bucket shared by all nodes, first refilling it for the time
+-- elapsed since the last call (greedy refill, like Bucket4j's Bandwidth.simple). The Redis clock is used
+-- so that clock skew between nodes does not matter.
+-- KEYS[1] bucket hash, ARGV[1] capacity, ARGV[2] refill period in milliseconds, ARGV[3] tokens wanted.
+-- Returns {tokens granted, whole tokens left}.
+local capacity = tonumber(ARGV[1])
+local period = tonumber(ARGV[2])
+local wanted = tonumber(ARGV[3])
+
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'refilled')
+local tokens = tonumber(state[1]) or capacity
+local refilled = tonumber(state[2]) or now
+if now > refilled then
+    tokens = math.min(capacity, tokens + (now - refilled) * capacity / period)
+    refilled = now
+end
+
+local granted = math.min(math.floor(tokens), wanted)
+tokens = tokens - granted
+redis.call('HSET', KEYS[1], 'tokens', string.format('%.6f', tokens), 'refilled', refilled)
+-- After one idle period the bucket is full again, which is the same as having no state
+redis.call('PEXPIRE', KEYS[1], period)
+return {granted, math.floor(tokens)}
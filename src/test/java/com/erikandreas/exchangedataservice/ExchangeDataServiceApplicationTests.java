@@ -1,13 +1,35 @@
 package com.erikandreas.exchangedataservice;
 
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Keeps the context off the exchanges: no ticker streams or sampling jobs, and symbols come from the saved responses
 @SpringBootTest
+@TestPropertySource(properties = {
+    "exchange.streaming.enabled=false",
+    "exchange.scheduler.enabled=false",
+    "exchange.symbols.fixture-location=classpath:symbols/"
+})
 class ExchangeDataServiceApplicationTests {
 
+    @Autowired
+    private SymbolIndex symbolIndex;
+
     @Test
     void contextLoads() {
     }
 
+    @Test
+    void loadsSymbolIndexAtStartupWithSchedulerDisabled() {
+        assertThat(symbolIndex.isLoaded("binance")).isTrue();
+        assertThat(symbolIndex.isLoaded("kraken")).isTrue();
+        assertThat(symbolIndex.isListed("binance", "BTCUSDT")).isTrue();
+        assertThat(symbolIndex.isListed("binance", "NOTAREALCOIN")).isFalse();
+    }
+
 }
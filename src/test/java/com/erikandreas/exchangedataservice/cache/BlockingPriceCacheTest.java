@@ -0,0 +1,79 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.ingestion.LatestPriceTable;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BlockingPriceCacheTest {
+
+    private TwoTierCache cache;
+    private BlockingPriceCache priceCache;
+
+    @BeforeEach
+    void setUp() {
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+            new ConcurrentMapCacheManager(),
+            mock(CacheInvalidationPublisher.class),
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofSeconds(10),
+            Duration.ofMinutes(1),
+            Duration.ofMinutes(10),
+            1.0,
+            Duration.ofSeconds(5));
+        cache = cacheManager.getCache("prices");
+        priceCache = new BlockingPriceCache(cacheManager, new LatestPriceTable(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void partlyCachedBatchLoadsOnlyTheMissingSymbolsInOneCall() {
+        List<String> symbols = IntStream.range(0, 40).mapToObj(i -> "S" + i + "USDT").toList();
+        // Every other symbol, so loaded and cached prices interleave in the request
+        List<String> cached = IntStream.range(0, 40).filter(i -> i % 2 == 0).mapToObj(symbols::get).toList();
+        cached.forEach(symbol -> cache.put("binance:" + symbol, price(symbol, "1")));
+        List<String> missing = symbols.stream().filter(symbol -> !cached.contains(symbol)).toList();
+        List<List<String>> loaderCalls = new ArrayList<>();
+
+        List<CryptoPrice> prices = priceCache.getAll("binance", symbols, requested -> {
+            loaderCalls.add(requested);
+            // The exchange answers in its own order
+            return requested.reversed().stream().map(symbol -> price(symbol, "2")).toList();
+        });
+
+        assertThat(loaderCalls).containsExactly(missing);
+        assertThat(prices).extracting(CryptoPrice::getSymbol).containsExactlyElementsOf(symbols);
+        assertThat(prices).filteredOn(price -> cached.contains(price.getSymbol()))
+            .allSatisfy(price -> assertThat(price.getPrice()).isEqualTo(new BigDecimal("1")));
+        for (String symbol : missing) {
+            assertThat(cache.get("binance:" + symbol, CryptoPrice.class).getPrice()).isEqualTo(new BigDecimal("2"));
+        }
+    }
+
+    @Test
+    void fullyCachedBatchNeverCallsTheLoader() {
+        List<String> symbols = List.of("BTCUSDT", "ETHUSDT");
+        symbols.forEach(symbol -> cache.put("binance:" + symbol, price(symbol, "1")));
+
+        List<CryptoPrice> prices = priceCache.getAll("binance", symbols, requested -> {
+            throw new AssertionError("loader called for " + requested);
+        });
+
+        assertThat(prices).extracting(CryptoPrice::getSymbol).containsExactly("BTCUSDT", "ETHUSDT");
+    }
+
+    private static CryptoPrice price(String symbol, String value) {
+        return CryptoPrice.builder().symbol(symbol).price(new BigDecimal(value)).exchange("Binance").build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.config.RedisConfig;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.DailyPriceAverage;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompactRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json =
+        new GenericJackson2JsonRedisSerializer(new RedisConfig().objectMapper());
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(json, true);
+
+    @Test
+    void roundTripsCachedPriceInFewerBytesThanJson() {
+        CachedValue cached = new CachedValue(price(), 1707819330123L, 42);
+
+        byte[] compact = serializer.serialize(cached);
+
+        assertThat(compact[0]).isEqualTo(CompactRedisSerializer.VERSION);
+        assertThat(compact.length).isLessThan(json.serialize(cached).length / 4);
+        assertThat(serializer.deserialize(compact)).isEqualTo(cached);
+    }
+
+    @Test
+    void roundTripsDailyAverageAndUnknownExchanges() {
+        DailyPriceAverage average = DailyPriceAverage.builder()
+            .symbol("ETHUSDT")
+            .exchange("coinbase")
+            .averagePrice(new BigDecimal("-2500.123456789012"))
+            .date(LocalDate.of(2024, 2, 13))
+            .numberOfUpdates(288)
+            .build();
+        CryptoPrice sparse = CryptoPrice.builder().symbol("BTCUSDT").price(BigDecimal.ONE).build();
+
+        assertThat(serializer.deserialize(serializer.serialize(average))).isEqualTo(average);
+        assertThat(serializer.deserialize(serializer.serialize(sparse))).isEqualTo(sparse);
+    }
+
+    @Test
+    void readsJsonWrittenBeforeTheCodecAndFallsBackForOtherValues() {
+        CachedValue legacy = new CachedValue(price(), 1707819330123L, 42);
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890.5");
+        CryptoPrice unencodable = CryptoPrice.builder().symbol("BTCUSDT").price(huge).build();
+
+        assertThat(serializer.deserialize(json.serialize(legacy))).isEqualTo(legacy);
+        assertThat(serializer.serialize(unencodable)[0]).isEqualTo((byte) '{');
+        assertThat(serializer.deserialize(serializer.serialize(unencodable))).isEqualTo(unencodable);
+        HashMap<String, Integer> other = new HashMap<>(Map.of("a", 1));
+        assertThat(serializer.deserialize(serializer.serialize(other))).isEqualTo(other);
+    }
+
+    @Test
+    void jsonModeWritesJsonButReadsBoth() {
+        CompactRedisSerializer jsonMode = new CompactRedisSerializer(json, false);
+        CachedValue cached = new CachedValue(price(), 1707819330123L, 42);
+
+        assertThat(jsonMode.serialize(cached)[0]).isEqualTo((byte) '{');
+        assertThat(jsonMode.deserialize(serializer.serialize(cached))).isEqualTo(cached);
+    }
+
+    @Test
+    void rejectsValuesFromNewerVersions() {
+        assertThatThrownBy(() -> serializer.deserialize(new byte[]{2, 1}))
+            .isInstanceOf(SerializationException.class);
+    }
+
+    private static CryptoPrice price() {
+        return CryptoPrice.builder()
+            .symbol("BTCUSDT")
+            .price(new BigDecimal("45000.12000000"))
+            .bid(new BigDecimal("44999.90"))
+            .ask(new BigDecimal("45000.10"))
+            .exchange("Binance")
+            .timestamp(LocalDateTime.of(2024, 2, 13, 10, 15, 30, 123_000_000))
+            .build();
+    }
+}
@@ -0,0 +1,72 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotKeyTrackerTest {
+
+    @Test
+    void ranksMostRequestedSymbolsPerExchange() {
+        HotKeyTracker tracker = new HotKeyTracker(100, Duration.ofMinutes(1));
+        record(tracker, "binance", "ETHUSDT", 5);
+        record(tracker, "binance", "BTCUSDT", 10);
+        record(tracker, "binance", "SOLUSDT", 1);
+        record(tracker, "kraken", "BTCUSDT", 20);
+
+        assertThat(tracker.top("binance", 10, 2)).containsExactly("BTCUSDT", "ETHUSDT");
+        assertThat(tracker.top("binance", 1, 2)).containsExactly("BTCUSDT");
+        assertThat(tracker.top("kraken", 10, 2)).containsExactly("BTCUSDT");
+    }
+
+    @Test
+    void heavyHittersSurviveAStreamOfColdSymbols() {
+        HotKeyTracker tracker = new HotKeyTracker(10, Duration.ofMinutes(1));
+        for (int i = 0; i < 1000; i++) {
+            tracker.record("binance", "BTCUSDT");
+            tracker.record("binance", "COLD" + i);
+        }
+
+        assertThat(tracker.top("binance", 1, 100)).containsExactly("BTCUSDT");
+        assertThat(tracker.top("binance", 10, 2)).containsExactly("BTCUSDT");
+    }
+
+    @Test
+    void concurrentRecordingKeepsTheRanking() {
+        HotKeyTracker tracker = new HotKeyTracker(10, Duration.ofMinutes(1));
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread * 1000;
+                executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        tracker.record("binance", "BTCUSDT");
+                        tracker.record("binance", i % 2 == 0 ? "ETHUSDT" : "COLD" + (offset + i));
+                    }
+                });
+            }
+        }
+
+        assertThat(tracker.top("binance", 2, 1000)).containsExactly("BTCUSDT", "ETHUSDT");
+    }
+
+    @Test
+    void countsDecaySoColdSymbolsDropOut() throws InterruptedException {
+        HotKeyTracker tracker = new HotKeyTracker(100, Duration.ofMillis(50));
+        record(tracker, "binance", "BTCUSDT", 4);
+        assertThat(tracker.top("binance", 10, 4)).containsExactly("BTCUSDT");
+
+        Thread.sleep(60);
+        assertThat(tracker.top("binance", 10, 4)).isEmpty();
+        assertThat(tracker.top("binance", 10, 2)).containsExactly("BTCUSDT");
+    }
+
+    private static void record(HotKeyTracker tracker, String exchange, String symbol, int times) {
+        for (int i = 0; i < times; i++) {
+            tracker.record(exchange, symbol);
+        }
+    }
+}
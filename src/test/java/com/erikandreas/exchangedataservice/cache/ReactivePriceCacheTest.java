@@ -0,0 +1,170 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.ingestion.LatestPriceTable;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+class ReactivePriceCacheTest {
+
+    private final ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager();
+    private TwoTierCacheManager cacheManager;
+    private ReactivePriceCache priceCache;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new TwoTierCacheManager(
+            remoteCacheManager,
+            mock(CacheInvalidationPublisher.class),
+            new SimpleMeterRegistry(),
+            100,
+            Duration.ofSeconds(10),
+            Duration.ofMinutes(1),
+            Duration.ofMinutes(10),
+            1.0,
+            Duration.ofSeconds(5));
+        priceCache = new ReactivePriceCache(cacheManager, new LatestPriceTable(Duration.ofSeconds(10)));
+    }
+
+    @Test
+    void concurrentMissesShareOneUpstreamCall() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        List<CryptoPrice> prices = Flux.range(0, 1000)
+            .flatMap(i -> priceCache.get("binance", "BTCUSDT", () -> {
+                upstreamCalls.incrementAndGet();
+                return Mono.delay(Duration.ofMillis(200)).map(tick -> price("45000.00"));
+            }), 1000)
+            .collectList()
+            .block(Duration.ofSeconds(5));
+
+        assertThat(prices).hasSize(1000);
+        assertThat(upstreamCalls).hasValue(1);
+    }
+
+    @Test
+    void storesResolvedValueSharedWithBlockingCache() {
+        priceCache.get("binance", "BTCUSDT", () -> Mono.just(price("45000.00"))).block();
+
+        assertThat(cacheManager.getCache("prices").get("binance:BTCUSDT", CryptoPrice.class))
+            .extracting(CryptoPrice::getPrice)
+            .isEqualTo(new BigDecimal("45000.00"));
+    }
+
+    @Test
+    void failedLoadIsNotCachedAndIsRetriedOnNextCall() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        Mono<CryptoPrice> failing = priceCache.get("kraken", "ETHUSDT", () -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.error(new IllegalStateException("boom"));
+        });
+        assertThat(failing.onErrorResume(e -> Mono.empty()).block()).isNull();
+
+        CryptoPrice price = priceCache.get("kraken", "ETHUSDT", () -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.just(price("3000.00"));
+        }).block();
+
+        assertThat(price.getPrice()).isEqualTo(new BigDecimal("3000.00"));
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void loadAbandonedByAllCallersIsNotJoinedLater() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+
+        Mono<CryptoPrice> abandoned = priceCache.get("kraken", "BTCUSDT", () -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.never();
+        }).timeout(Duration.ofMillis(100));
+        assertThat(abandoned.onErrorResume(e -> Mono.empty()).block()).isNull();
+
+        CryptoPrice price = priceCache.get("kraken", "BTCUSDT", () -> {
+            upstreamCalls.incrementAndGet();
+            return Mono.just(price("45000.00"));
+        }).block(Duration.ofSeconds(2));
+
+        assertThat(price.getPrice()).isEqualTo(new BigDecimal("45000.00"));
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void stalePriceIsServedWithItsAgeAndRefreshedInBackground() {
+        cacheManager.getCache("prices");
+        remoteCacheManager.getCache("prices").put("binance:BTCUSDT",
+            new CachedValue(price("45000.00"), System.currentTimeMillis() - 120_000, 100));
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        Queue<Priority> priorities = new ConcurrentLinkedQueue<>();
+
+        CryptoPrice stale = priceCache.get("binance", "BTCUSDT", () -> Mono.deferContextual(context -> {
+            upstreamCalls.incrementAndGet();
+            priorities.add(Priority.current(context));
+            return Mono.just(price("46000.00"));
+        })).block();
+
+        assertThat(stale.getPrice()).isEqualTo(new BigDecimal("45000.00"));
+        assertThat(stale.getStale()).isTrue();
+        assertThat(stale.getAgeSeconds()).isGreaterThanOrEqualTo(120);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> upstreamCalls.get() == 1
+            && cacheManager.getCache("prices").get("binance:BTCUSDT") != null);
+        CryptoPrice refreshed = priceCache.get("binance", "BTCUSDT", () -> Mono.error(new IllegalStateException("unused")))
+            .block();
+        assertThat(refreshed.getPrice()).isEqualTo(new BigDecimal("46000.00"));
+        assertThat(refreshed.getStale()).isNull();
+        assertThat(priorities).containsExactly(Priority.BACKGROUND);
+    }
+
+    @Test
+    void partlyCachedBatchLoadsOnlyTheMissingSymbolsInOneCall() {
+        List<String> symbols = IntStream.range(0, 40).mapToObj(i -> "S" + i + "USDT").toList();
+        List<String> cached = symbols.subList(0, 25);
+        TwoTierCache cache = cacheManager.getCache("prices");
+        cached.forEach(symbol -> cache.put("kraken:" + symbol, price(symbol, "1")));
+        List<List<String>> loaderCalls = new ArrayList<>();
+
+        List<CryptoPrice> prices = priceCache.getAll("kraken", symbols, requested -> {
+            loaderCalls.add(requested);
+            return Mono.just(requested.reversed().stream().map(symbol -> price(symbol, "2")).toList());
+        }).block();
+
+        assertThat(loaderCalls).containsExactly(symbols.subList(25, 40));
+        assertThat(prices).extracting(CryptoPrice::getSymbol).containsExactlyElementsOf(symbols);
+        for (String symbol : symbols.subList(25, 40)) {
+            assertThat(cache.get("kraken:" + symbol, CryptoPrice.class).getPrice()).isEqualTo(new BigDecimal("2"));
+        }
+    }
+
+    private static CryptoPrice price(String value) {
+        return price("BTCUSDT", value);
+    }
+
+    private static CryptoPrice price(String symbol, String value) {
+        return CryptoPrice.builder()
+            .symbol(symbol)
+            .price(new BigDecimal(value))
+            .exchange("Binance")
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+}
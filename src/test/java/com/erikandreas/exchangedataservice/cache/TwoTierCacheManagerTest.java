@@ -0,0 +1,108 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TwoTierCacheManagerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CacheInvalidationPublisher publisher = mock(CacheInvalidationPublisher.class);
+    private TwoTierCacheManager cacheManager;
+    private TwoTierCache cache;
+
+    @BeforeEach
+    void setUp() {
+        when(publisher.getNodeId()).thenReturn("node-a");
+        cacheManager = new TwoTierCacheManager(
+            new ConcurrentMapCacheManager(),
+            publisher,
+            meterRegistry,
+            100,
+            Duration.ofSeconds(10),
+            Duration.ofMinutes(1),
+            Duration.ofMinutes(1),
+            1.0,
+            Duration.ofSeconds(5));
+        cache = cacheManager.getCache("prices");
+        cache.put("binance:BTCUSDT", "45000.00");
+        cache.put("binance:ETHUSDT", "3000.00");
+    }
+
+    @Test
+    void evictionFromAnotherNodeDropsTheLocalEntry() {
+        cacheManager.onMessage(message("E|node-b|prices|binance:BTCUSDT"), null);
+
+        assertThat(cache.getLocal("binance:BTCUSDT")).isNull();
+        assertThat(cache.getLocal("binance:ETHUSDT")).isNotNull();
+        // The shared tier still has it, so the next read refills L1 from Redis
+        assertThat(cache.get("binance:BTCUSDT").get()).isEqualTo("45000.00");
+        assertThat(cache.getLocal("binance:BTCUSDT")).isNotNull();
+        assertThat(evictions()).isEqualTo(1);
+    }
+
+    @Test
+    void clearFromAnotherNodeDropsAllLocalEntries() {
+        cacheManager.onMessage(message("C|node-b|prices|"), null);
+
+        assertThat(cache.getLocal("binance:BTCUSDT")).isNull();
+        assertThat(cache.getLocal("binance:ETHUSDT")).isNull();
+    }
+
+    @Test
+    void ignoresItsOwnMessagesUnknownCachesAndMalformedMessages() {
+        cacheManager.onMessage(message("E|node-a|prices|binance:BTCUSDT"), null);
+        cacheManager.onMessage(message("E|node-b|bars|binance:BTCUSDT"), null);
+        cacheManager.onMessage(message("E|node-b|prices"), null);
+        cacheManager.onMessage(message("X|node-b|prices|binance:BTCUSDT"), null);
+
+        assertThat(cache.getLocal("binance:BTCUSDT")).isNotNull();
+        assertThat(cacheManager.getCacheNames()).containsExactly("prices");
+        assertThat(evictions()).isZero();
+    }
+
+    @Test
+    void countsHitsAndMissesPerTier() {
+        cache.get("binance:BTCUSDT");
+        cache.get("binance:SOLUSDT");
+        cacheManager.onMessage(message("E|node-b|prices|binance:ETHUSDT"), null);
+        cache.get("binance:ETHUSDT");
+
+        assertThat(gets("l1", "hit")).isEqualTo(1);
+        assertThat(gets("l1", "miss")).isEqualTo(2);
+        assertThat(gets("l2", "hit")).isEqualTo(1);
+        assertThat(gets("l2", "miss")).isEqualTo(1);
+        assertThat(meterRegistry.get("cache.tier.latency").tags("cache", "prices", "tier", "l1").timer().count())
+            .isEqualTo(3);
+        assertThat(meterRegistry.get("cache.tier.latency").tags("cache", "prices", "tier", "l2").timer().count())
+            .isEqualTo(2);
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets")
+            .tags("cache", "prices", "tier", tier, "result", result)
+            .counter()
+            .count();
+    }
+
+    private double evictions() {
+        return meterRegistry.get("cache.tier.evictions")
+            .tags("cache", "prices", "cause", "explicit")
+            .counter()
+            .count();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(
+            "cache-invalidation".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,153 @@
+package com.erikandreas.exchangedataservice.cache;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+
+class TwoTierCacheTest {
+
+    // Like the Redis cache, which is configured not to cache nulls
+    private final ConcurrentMapCache remote = new ConcurrentMapCache("prices", false);
+
+    @Test
+    void concurrentMissesLoadOnce() throws Exception {
+        TwoTierCache cache = cache(Duration.ofMinutes(1), 1.0, Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<String>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 200; i++) {
+                results.add(executor.submit(() -> cache.get("binance:BTCUSDT", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(200);
+                    return "45000.00";
+                })));
+            }
+        }
+
+        for (Future<String> result : results) {
+            assertThat(result.get()).isEqualTo("45000.00");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void waitersGiveUpAfterTimeout() throws Exception {
+        TwoTierCache cache = cache(Duration.ofMinutes(1), 1.0, Duration.ofMillis(50));
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            executor.submit(() -> cache.get("kraken:BTCUSDT", () -> {
+                Thread.sleep(500);
+                return "45000.00";
+            }));
+            Thread.sleep(50);
+
+            assertThatThrownBy(() -> cache.get("kraken:BTCUSDT", () -> "unused"))
+                .isInstanceOf(Cache.ValueRetrievalException.class)
+                .hasCauseInstanceOf(ExchangeException.class);
+        }
+    }
+
+    @Test
+    void entryCloseToExpiryIsRefreshedEarlyAndKeptOnFailure() {
+        TwoTierCache cache = cache(Duration.ofMinutes(1), 1.0, Duration.ofSeconds(5));
+        // Written 59.9s ago and took 10s to load: XFetch treats it as due for refresh
+        remote.put("binance:ETHUSDT", new CachedValue("3000.00", System.currentTimeMillis() - 59_900, 10_000));
+
+        Callable<String> failingLoader = () -> {
+            throw new IllegalStateException("upstream down");
+        };
+        assertThat(cache.get("binance:ETHUSDT", failingLoader)).isEqualTo("3000.00");
+        assertThat(cache.get("binance:ETHUSDT", () -> "3100.00")).isEqualTo("3100.00");
+    }
+
+    @Test
+    void freshEntryIsNotRefreshed() {
+        TwoTierCache cache = cache(Duration.ofMinutes(1), 1.0, Duration.ofSeconds(5));
+        cache.put("binance:ETHUSDT", "3000.00", 100);
+
+        assertThat(cache.get("binance:ETHUSDT", () -> "3100.00")).isEqualTo("3000.00");
+    }
+
+    @Test
+    void staleEntryIsServedAndRefreshedInBackground() {
+        TwoTierCache cache = cache(Duration.ofMinutes(1), Duration.ofMinutes(10), 1.0, Duration.ofSeconds(5));
+        remote.put("binance:ETHUSDT", new CachedValue("3000.00", System.currentTimeMillis() - 120_000, 100));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThat(cache.get("binance:ETHUSDT", () -> {
+            loads.incrementAndGet();
+            return "3100.00";
+        })).isEqualTo("3000.00");
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> cache.get("binance:ETHUSDT") != null);
+        assertThat(cache.get("binance:ETHUSDT", () -> "unused")).isEqualTo("3100.00");
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void staleEntryIsKeptWhenRefreshFailsUntilHardTtl() {
+        TwoTierCache cache = cache(Duration.ofMinutes(1), Duration.ofMinutes(10), 1.0, Duration.ofSeconds(5));
+        Callable<String> failingLoader = () -> {
+            throw new IllegalStateException("upstream down");
+        };
+
+        remote.put("kraken:ETHUSDT", new CachedValue("3000.00", System.currentTimeMillis() - 120_000, 100));
+        CachedValue stale = cache.getEntry("kraken:ETHUSDT", failingLoader);
+        assertThat(stale.getValue()).isEqualTo("3000.00");
+        assertThat(cache.isStale(stale)).isTrue();
+        assertThat(cache.get("kraken:ETHUSDT")).isNull();
+
+        remote.put("kraken:ETHUSDT", new CachedValue("3000.00", System.currentTimeMillis() - 700_000, 100));
+        cache.evictLocal("kraken:ETHUSDT");
+        assertThatThrownBy(() -> cache.get("kraken:ETHUSDT", failingLoader))
+            .isInstanceOf(Cache.ValueRetrievalException.class);
+    }
+
+    @Test
+    void nullLoadIsAMissAndDropsTheOldEntry() {
+        TwoTierCache cache = cache(Duration.ofMinutes(1), Duration.ofMinutes(10), 1.0, Duration.ofSeconds(5));
+        assertThat(cache.get("kraken:BTCUSDT", (Callable<String>) () -> null)).isNull();
+        assertThat(cache.getEntry("kraken:BTCUSDT")).isNull();
+
+        remote.put("kraken:ETHUSDT", new CachedValue("3000.00", System.currentTimeMillis() - 120_000, 100));
+        assertThat(cache.getEntry("kraken:ETHUSDT")).isNotNull();
+        cache.refreshInBackground("kraken:ETHUSDT", () -> null);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> cache.getEntry("kraken:ETHUSDT") == null);
+        assertThat(remote.get("kraken:ETHUSDT")).isNull();
+    }
+
+    private TwoTierCache cache(Duration ttl, double beta, Duration loadTimeout) {
+        return cache(ttl, ttl, beta, loadTimeout);
+    }
+
+    private TwoTierCache cache(Duration ttl, Duration hardTtl, double beta, Duration loadTimeout) {
+        return new TwoTierCache(
+            "prices",
+            com.github.benmanes.caffeine.cache.Caffeine.newBuilder().maximumSize(100).build(),
+            remote,
+            mock(CacheInvalidationPublisher.class),
+            ttl,
+            hardTtl,
+            beta,
+            loadTimeout,
+            new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,98 @@
+package com.erikandreas.exchangedataservice.config;
+
+import com.erikandreas.exchangedataservice.service.RateLimitService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class RestTemplateConfigTest {
+
+    private HttpServer server;
+    private MeterRegistry meterRegistry;
+    private CloseableHttpClient httpClient;
+    private RestTemplate restTemplate;
+    private final RateLimitService rateLimitService = mock(RateLimitService.class);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ticker/price", exchange -> {
+            byte[] body = "{\"symbol\":\"BTCUSDT\",\"price\":\"45000.00\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("X-MBX-USED-WEIGHT-1M", "42");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        RestTemplateConfig config = new RestTemplateConfig(meterRegistry);
+        ReflectionTestUtils.setField(config, "binanceBaseUrl", "http://localhost:" + server.getAddress().getPort());
+        PoolingHttpClientConnectionManager connectionManager = config.exchangeConnectionManager(
+            10, 5, Duration.ofSeconds(1), Duration.ofMinutes(5), meterRegistry);
+        httpClient = config.exchangeHttpClient(
+            connectionManager, Duration.ofMillis(500), Duration.ofSeconds(1), Duration.ofSeconds(30));
+        restTemplate = config.binanceRestTemplate(new RestTemplateBuilder(), httpClient, rateLimitService);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        server.stop(0);
+    }
+
+    @Test
+    void reusesPooledConnectionsAcrossRequests() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(restTemplate.getForObject("/ticker/price?symbol=BTCUSDT", String.class)).contains("45000.00");
+        }
+
+        assertThat(meterRegistry.get("http.client.connections.requests").counter().count()).isEqualTo(5);
+        assertThat(meterRegistry.get("http.client.connections.opened").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("http.client.connections.reuse.ratio").gauge().value()).isEqualTo(0.8);
+        assertThat(meterRegistry.get("httpcomponents.httpclient.pool.total.max").gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    void reportsResponsesToTheRateLimiter() {
+        restTemplate.getForObject("/ticker/price?symbol=BTCUSDT", String.class);
+
+        verify(rateLimitService).recordResponse(
+            eq("binance"), eq(200), argThat(headers -> "42".equals(headers.getFirst("X-MBX-USED-WEIGHT-1M"))));
+    }
+
+    @Test
+    void slowResponsesTimeOut() {
+        assertThatThrownBy(() -> restTemplate.getForObject("/slow", String.class))
+            .isInstanceOf(ResourceAccessException.class);
+    }
+}
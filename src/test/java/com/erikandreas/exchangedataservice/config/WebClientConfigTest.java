@@ -0,0 +1,97 @@
+package com.erikandreas.exchangedataservice.config;
+
+import com.erikandreas.exchangedataservice.service.RateLimitService;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.test.StepVerifier;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class WebClientConfigTest {
+
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private ConnectionProvider connectionProvider;
+    private WebClient webClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ticker/price", exchange -> {
+            byte[] body = "{\"symbol\":\"BTCUSDT\",\"price\":\"45000.00\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/slow", exchange -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+
+        // Reactor Netty publishes pool metrics to the global registry
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+
+        WebClientConfig config = new WebClientConfig();
+        ReflectionTestUtils.setField(config, "binanceBaseUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(config, "maxConnections", 2);
+        ReflectionTestUtils.setField(config, "pendingAcquireMaxCount", 10);
+        ReflectionTestUtils.setField(config, "pendingAcquireTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "maxIdleTime", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(config, "maxLifeTime", Duration.ofMinutes(5));
+        ReflectionTestUtils.setField(config, "connectTimeout", Duration.ofSeconds(1));
+        ReflectionTestUtils.setField(config, "responseTimeout", Duration.ofMillis(200));
+        connectionProvider = config.binanceConnectionProvider();
+        webClient = config.binanceWebClient(WebClient.builder(), connectionProvider, mock(RateLimitService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        connectionProvider.dispose();
+        Metrics.removeRegistry(meterRegistry);
+        server.stop(0);
+    }
+
+    @Test
+    void publishesPoolMetricsPerExchange() {
+        StepVerifier.create(webClient.get().uri("/ticker/price?symbol=BTCUSDT").retrieve().bodyToMono(String.class))
+            .assertNext(body -> assertThat(body).contains("45000.00"))
+            .verifyComplete();
+
+        assertThat(meterRegistry.find("reactor.netty.connection.provider.max.connections")
+            .tag("name", "binance").gauge().value()).isEqualTo(2);
+        for (String gauge : List.of("active.connections", "idle.connections", "pending.connections")) {
+            assertThat(meterRegistry.find("reactor.netty.connection.provider." + gauge).tag("name", "binance").gauge())
+                .isNotNull();
+        }
+    }
+
+    @Test
+    void stalledResponsesTimeOut() {
+        StepVerifier.create(webClient.get().uri("/slow").retrieve().toBodilessEntity())
+            .expectError(WebClientRequestException.class)
+            .verify(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,86 @@
+package com.erikandreas.exchangedataservice.controller;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.service.PriceStreamService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PriceWebSocketHandlerTest {
+
+    private final PriceStreamService streamService = mock(PriceStreamService.class);
+    private final WebSocketSession session = mock(WebSocketSession.class);
+    private final PriceWebSocketHandler handler = new PriceWebSocketHandler(streamService);
+
+    @BeforeEach
+    void setUp() {
+        when(session.getId()).thenReturn("session-1");
+        handler.afterConnectionEstablished(session);
+    }
+
+    @Test
+    void cancelsThePreviousSubscriptionBeforeStartingTheNextOne() throws Exception {
+        List<String> events = new CopyOnWriteArrayList<>();
+        when(streamService.subscribe(anyCollection(), anyString()))
+            .thenReturn(Flux.<CryptoPrice>never().doOnCancel(() -> events.add("first cancelled")))
+            .thenReturn(Flux.defer(() -> {
+                events.add("second subscribed");
+                return Flux.just(price());
+            }));
+
+        handler.handleTextMessage(session, subscribe());
+        handler.handleTextMessage(session, subscribe());
+
+        assertThat(events).containsExactly("first cancelled", "second subscribed");
+        verify(session).sendMessage(any(TextMessage.class));
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void closesTheSessionWhenThePriceStreamFails() throws Exception {
+        when(streamService.subscribe(anyCollection(), anyString()))
+            .thenReturn(Flux.error(new IllegalStateException("feed down")));
+
+        handler.handleTextMessage(session, subscribe());
+
+        verify(session).close(CloseStatus.SERVER_ERROR);
+    }
+
+    @Test
+    void closesTheSessionWhenASendFails() throws Exception {
+        when(streamService.subscribe(anyCollection(), anyString())).thenReturn(Flux.just(price(), price()));
+        doThrow(new IllegalStateException("TEXT_PARTIAL_WRITING"))
+            .when(session).sendMessage(any(WebSocketMessage.class));
+
+        handler.handleTextMessage(session, subscribe());
+
+        verify(session).sendMessage(any(WebSocketMessage.class));
+        verify(session).close(CloseStatus.SERVER_ERROR);
+    }
+
+    private static TextMessage subscribe() {
+        return new TextMessage("{\"pairs\":[\"binance:BTCUSDT\"]}");
+    }
+
+    private static CryptoPrice price() {
+        return CryptoPrice.builder().symbol("BTCUSDT").price(new BigDecimal("45000.00")).exchange("Binance").build();
+    }
+}
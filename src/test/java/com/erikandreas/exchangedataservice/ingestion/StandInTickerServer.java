@@ -0,0 +1,57 @@
+package com.erikandreas.exchangedataservice.ingestion;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local WebSocket server standing in for an exchange ticker feed: records subscribe messages,
+ * pushes whatever frames the test emits and can drop every open connection on demand.
+ */
+class StandInTickerServer implements AutoCloseable {
+
+    private final Sinks.Many<String> frames = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<Boolean> drops = Sinks.many().multicast().directBestEffort();
+    private final List<String> subscriptions = new CopyOnWriteArrayList<>();
+    private final DisposableServer server;
+
+    StandInTickerServer() {
+        server = HttpServer.create()
+            .port(0)
+            .route(routes -> routes.ws("/ws", (in, out) -> {
+                Mono<Void> inbound = in.receive()
+                    .asString()
+                    .doOnNext(subscriptions::add)
+                    .then();
+                Mono<Void> outbound = out.sendString(frames.asFlux()).then();
+                return Mono.firstWithSignal(inbound, outbound, drops.asFlux().next().then());
+            }))
+            .bindNow();
+    }
+
+    URI uri() {
+        return URI.create("ws://localhost:" + server.port() + "/ws");
+    }
+
+    List<String> subscriptions() {
+        return subscriptions;
+    }
+
+    void push(String frame) {
+        frames.tryEmitNext(frame);
+    }
+
+    void dropConnections() {
+        drops.tryEmitNext(true);
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
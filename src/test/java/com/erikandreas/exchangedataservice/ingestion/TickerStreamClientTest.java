@@ -0,0 +1,117 @@
+package com.erikandreas.exchangedataservice.ingestion;
+
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class TickerStreamClientTest {
+
+    private StandInTickerServer server;
+    private LatestPriceTable priceTable;
+    private SymbolIndex symbolIndex;
+    private TickerStreamClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = new StandInTickerServer();
+        priceTable = new LatestPriceTable(Duration.ofMillis(500));
+        symbolIndex = new SymbolIndex(Duration.ofMinutes(10), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.stop();
+        }
+        server.close();
+    }
+
+    @Test
+    void binanceTicksLandInPriceTable() {
+        client = new BinanceTickerStreamClient(
+            server.uri(), List.of("BTCUSDT"), Duration.ofSeconds(5), true, priceTable, new ReactorNettyWebSocketClient());
+        client.start();
+
+        await().until(() -> server.subscriptions().size() == 1);
+        assertThat(server.subscriptions().get(0)).contains("btcusdt@ticker");
+
+        server.push("{\"result\":null,\"id\":1}");
+        server.push("{\"e\":\"24hrTicker\",\"s\":\"BTCUSDT\",\"c\":\"45000.10\",\"b\":\"45000.00\",\"a\":\"45000.20\"}");
+
+        await().until(() -> priceTable.hasFresh("binance", "BTCUSDT"));
+        assertThat(priceTable.getFresh("binance", "BTCUSDT").getPrice()).isEqualTo(new BigDecimal("45000.10"));
+        assertThat(priceTable.isSubscribed("binance", "ETHUSDT")).isFalse();
+    }
+
+    @Test
+    void krakenTicksAreMappedBackToRequestedSymbols() {
+        symbolIndex.update("kraken",
+            Map.of("BTCUSDT", "XBTUSDT", "ETHUSD", "XETHZUSD", "BTCJPY", "XXBTZJPY"),
+            Map.of("BTCUSDT", "BTC/USDT", "ETHUSD", "ETH/USD", "BTCJPY", "BTC/JPY"));
+        client = new KrakenTickerStreamClient(
+            server.uri(), List.of("BTCUSDT", "ETHUSD", "BTCJPY", "FOOUSD"), Duration.ofSeconds(5), true, priceTable,
+            new ReactorNettyWebSocketClient(), symbolIndex);
+        client.start();
+
+        await().until(() -> server.subscriptions().size() == 1);
+        assertThat(server.subscriptions().get(0))
+            .contains("[\"BTC/USDT\",\"ETH/USD\",\"BTC/JPY\"]")
+            .doesNotContain("FOO");
+
+        server.push("{\"channel\":\"heartbeat\"}");
+        server.push("{\"channel\":\"ticker\",\"type\":\"update\",\"data\":[{\"symbol\":\"BTC/USDT\",\"bid\":45000.0,\"ask\":45000.5,\"last\":45000.2}]}");
+
+        await().until(() -> priceTable.hasFresh("kraken", "BTCUSDT"));
+        assertThat(priceTable.getFresh("kraken", "BTCUSDT").getPrice()).isEqualByComparingTo("45000.5");
+    }
+
+    @Test
+    void krakenGuessesPairsOnlyUntilSymbolsAreLoadedAndSkipsUnknownQuotes() {
+        client = new KrakenTickerStreamClient(
+            server.uri(), List.of("BTCUSDT", "ETHUSD", "BTCJPY"), Duration.ofSeconds(5), true, priceTable,
+            new ReactorNettyWebSocketClient(), symbolIndex);
+        client.start();
+
+        await().until(() -> server.subscriptions().size() == 1);
+        assertThat(server.subscriptions().get(0)).contains("[\"BTC/USDT\",\"ETH/USD\"]");
+    }
+
+    @Test
+    void reconnectsAndResubscribesAfterDisconnect() {
+        client = new BinanceTickerStreamClient(
+            server.uri(), List.of("BTCUSDT"), Duration.ofSeconds(5), true, priceTable, new ReactorNettyWebSocketClient());
+        client.start();
+        await().until(() -> server.subscriptions().size() == 1);
+
+        server.dropConnections();
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> server.subscriptions().size() == 2);
+        server.push("{\"e\":\"24hrTicker\",\"s\":\"BTCUSDT\",\"c\":\"45100.00\"}");
+        await().until(() -> priceTable.hasFresh("binance", "BTCUSDT"));
+    }
+
+    @Test
+    void silentFeedGoesStaleAndIsReconnected() {
+        client = new BinanceTickerStreamClient(
+            server.uri(), List.of("BTCUSDT"), Duration.ofMillis(300), true, priceTable, new ReactorNettyWebSocketClient());
+        client.start();
+        await().until(() -> server.subscriptions().size() == 1);
+        server.push("{\"e\":\"24hrTicker\",\"s\":\"BTCUSDT\",\"c\":\"45000.00\"}");
+        await().until(() -> priceTable.hasFresh("binance", "BTCUSDT"));
+
+        // No more ticks: the symbol goes stale and the silent connection is replaced
+        await().atMost(Duration.ofSeconds(5)).until(() -> !priceTable.hasFresh("binance", "BTCUSDT"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> server.subscriptions().size() >= 2);
+    }
+}
@@ -0,0 +1,73 @@
+package com.erikandreas.exchangedataservice.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FixedPriceTest {
+
+    private static final List<String> SAMPLES = List.of(
+        "45000.12000000", "0.00000001", "-0.5", "+12.0", "0", "100", ".5", "5.", "0.000000000000000000000123",
+        "922337203685477580.7", "9223372036854775807", "9223372036854775808", "-9223372036854775808",
+        "123456789012345678901234567890.5", "1E+3", "2.5e-4");
+
+    @Test
+    void parsesAndPrintsExactlyLikeBigDecimal() {
+        for (String sample : SAMPLES) {
+            BigDecimal expected = new BigDecimal(sample);
+            FixedPrice parsed = FixedPrice.parse(sample);
+
+            assertThat(parsed.toBigDecimal()).as(sample).isEqualTo(expected);
+            assertThat(parsed.toPlainString()).as(sample).isEqualTo(expected.toPlainString());
+            assertThat(parsed).as(sample).isEqualTo(FixedPrice.valueOf(expected));
+            assertThat(parsed.hashCode()).as(sample).isEqualTo(FixedPrice.valueOf(expected).hashCode());
+            assertThat(FixedPrice.parse(new StringBuilder(sample))).as(sample).isEqualTo(parsed);
+            char[] buffer = ("[" + sample + "]").toCharArray();
+            assertThat(FixedPrice.parse(buffer, 1, sample.length())).as(sample).isEqualTo(parsed);
+        }
+        assertThat(FixedPrice.parse("45000.10").fitsLong()).isTrue();
+        assertThat(FixedPrice.parse("123456789012345678901234567890.5").fitsLong()).isFalse();
+        assertThatThrownBy(() -> FixedPrice.parse("45,000")).isInstanceOf(NumberFormatException.class);
+        assertThatThrownBy(() -> FixedPrice.parse("-")).isInstanceOf(NumberFormatException.class);
+    }
+
+    @Test
+    void comparesAndRescalesLikeBigDecimal() {
+        for (String a : SAMPLES) {
+            for (String b : SAMPLES) {
+                assertThat(Integer.signum(FixedPrice.parse(a).compareTo(FixedPrice.parse(b))))
+                    .as("%s vs %s", a, b)
+                    .isEqualTo(new BigDecimal(a).compareTo(new BigDecimal(b)));
+            }
+        }
+        assertThat(FixedPrice.parse("45000.1")).isNotEqualTo(FixedPrice.parse("45000.10"));
+
+        for (String sample : List.of("100.000000005", "100.000000004", "-100.000000005", "-0.000000015",
+                "45000.12", "0.123456789", "-7")) {
+            long expected = new BigDecimal(sample).setScale(8, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            assertThat(FixedPrice.parse(sample).toUnscaled(8)).as(sample).isEqualTo(expected);
+        }
+        assertThatThrownBy(() -> FixedPrice.parse("922337203685477580.7").toUnscaled(8))
+            .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void cryptoPriceKeepsBigDecimalJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        CryptoPrice price = CryptoPrice.builder()
+            .symbol("BTCUSDT")
+            .price(FixedPrice.parse("45000.12000000"))
+            .bid(new BigDecimal("44999.90"))
+            .build();
+
+        String json = objectMapper.writeValueAsString(price);
+        assertThat(json).contains("\"price\":45000.12000000", "\"bid\":44999.90").doesNotContain("fixed");
+        assertThat(objectMapper.readValue(json, CryptoPrice.class)).isEqualTo(price);
+    }
+}
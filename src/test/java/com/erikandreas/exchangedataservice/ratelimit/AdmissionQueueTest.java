@@ -0,0 +1,104 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdmissionQueueTest {
+
+    private static final Duration PERIOD = Duration.ofMillis(300);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExchangeRateLimiter limiter = new ExchangeRateLimiter(
+        "binance", new LocalTokenBucket(1, PERIOD), 1, PERIOD, null, meterRegistry);
+    private AdmissionQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        queue.close();
+    }
+
+    @Test
+    void waitsForTheNextTokenInsteadOfFailing() {
+        queue = queue(10, Duration.ofSeconds(2));
+
+        long start = System.nanoTime();
+        queue.acquire(1, Priority.INTERACTIVE);
+        queue.acquire(1, Priority.INTERACTIVE);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(200));
+        assertThat(meterRegistry.get("rate.limit.admission.wait").tags("exchange", "binance", "priority", "interactive")
+            .timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void servesInteractiveWaitersBeforeBackgroundOnes() {
+        queue = queue(10, Duration.ofSeconds(5));
+        queue.acquire(1, Priority.INTERACTIVE);
+
+        List<Priority> admitted = new CopyOnWriteArrayList<>();
+        CompletableFuture<Void> background = queue.enqueue(1, Priority.BACKGROUND)
+            .thenRun(() -> admitted.add(Priority.BACKGROUND));
+        CompletableFuture<Void> interactive = queue.enqueue(1, Priority.INTERACTIVE)
+            .thenRun(() -> admitted.add(Priority.INTERACTIVE));
+
+        CompletableFuture.allOf(background, interactive).join();
+        assertThat(admitted).containsExactly(Priority.INTERACTIVE, Priority.BACKGROUND);
+    }
+
+    @Test
+    void shedsLoadWhenTheQueueIsFull() {
+        // A bucket that does not refill during the test, so the queued waiter stays queued
+        ExchangeRateLimiter slowLimiter = new ExchangeRateLimiter(
+            "binance", new LocalTokenBucket(1, Duration.ofMinutes(1)), 1, Duration.ofMinutes(1), null, meterRegistry);
+        queue = new AdmissionQueue("binance", slowLimiter, 1,
+            Map.of(Priority.INTERACTIVE, Duration.ofSeconds(5), Priority.BACKGROUND, Duration.ofSeconds(5)), meterRegistry);
+        queue.acquire(1, Priority.INTERACTIVE);
+        queue.enqueue(1, Priority.INTERACTIVE);
+
+        assertThatThrownBy(() -> queue.enqueue(1, Priority.INTERACTIVE).join())
+            .isInstanceOf(CompletionException.class)
+            .cause()
+            .isInstanceOfSatisfying(RateLimitExceededException.class,
+                e -> assertThat(e.getRetryAfter()).isPositive());
+        assertThat(meterRegistry.get("rate.limit.admission.shed").tags("exchange", "binance", "priority", "interactive")
+            .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWaitersThatOutliveTheirDeadline() {
+        queue = queue(10, Duration.ofMillis(50));
+        queue.acquire(1, Priority.INTERACTIVE);
+
+        assertThatThrownBy(() -> queue.acquire(1, Priority.INTERACTIVE))
+            .isInstanceOf(RateLimitExceededException.class);
+    }
+
+    @Test
+    void cancelledWaitersGiveUpTheirTokens() {
+        // The next token is due after 300ms; one taken for the cancelled waiter would push ours past 450ms
+        queue = queue(10, Duration.ofMillis(450));
+        queue.acquire(1, Priority.INTERACTIVE);
+
+        queue.enqueue(1, Priority.INTERACTIVE).cancel(true);
+        queue.acquire(1, Priority.BACKGROUND);
+
+        assertThat(meterRegistry.get("rate.limit.admission.queued").tags("exchange", "binance").gauge().value()).isZero();
+    }
+
+    private AdmissionQueue queue(int maxQueued, Duration maxWait) {
+        return new AdmissionQueue("binance", limiter, maxQueued,
+            Map.of(Priority.INTERACTIVE, maxWait, Priority.BACKGROUND, maxWait), meterRegistry);
+    }
+}
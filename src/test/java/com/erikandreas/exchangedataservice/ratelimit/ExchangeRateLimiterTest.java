@@ -0,0 +1,64 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExchangeRateLimiterTest {
+
+    private static final String USED_WEIGHT = "X-MBX-USED-WEIGHT-1M";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExchangeRateLimiter limiter = new ExchangeRateLimiter(
+        "binance", new LocalTokenBucket(1000, Duration.ofMinutes(1)), 1000, Duration.ofMinutes(1), USED_WEIGHT,
+        meterRegistry);
+
+    @Test
+    void shrinksOnHighReportedUsageAndGrowsBackWithHeadroom() {
+        limiter.onResponse(200, usedWeight(950));
+        limiter.onResponse(200, usedWeight(960));
+        assertThat(limiter.getCapacity()).isEqualTo(700);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.onResponse(200, usedWeight(100));
+        }
+        assertThat(limiter.getCapacity()).isEqualTo(750);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onResponse(200, usedWeight(100));
+        }
+        assertThat(limiter.getCapacity()).isEqualTo(1000);
+        assertThat(meterRegistry.get("rate.limit.backoffs").tags("exchange", "binance", "reason", "usage")
+            .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void pausesForRetryAfterWhenThrottled() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "30");
+
+        limiter.onResponse(429, headers);
+
+        assertThat(limiter.tryConsume(1)).isFalse();
+        assertThat(limiter.getAvailableTokens()).isZero();
+        assertThat(limiter.getCapacity()).isEqualTo(500);
+    }
+
+    @Test
+    void banDropsTheBudgetToTheMinimum() {
+        limiter.onResponse(418, new HttpHeaders());
+
+        assertThat(limiter.getCapacity()).isEqualTo(50);
+        assertThat(limiter.tryConsume(1)).isFalse();
+    }
+
+    private static HttpHeaders usedWeight(long used) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(USED_WEIGHT, Long.toString(used));
+        return headers;
+    }
+}
@@ -0,0 +1,110 @@
+package com.erikandreas.exchangedataservice.ratelimit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against a Redis on localhost:6379 and is skipped when none is available.
+ */
+class RedisTokenBucketTest {
+
+    private static final String KEY = "ratelimit:test";
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory("localhost", 6379);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        try {
+            template.execute(connection -> connection.ping(), true);
+        } catch (Exception e) {
+            assumeTrue(false, "Redis is not available on localhost:6379");
+        }
+        redisTemplate = template;
+        redisTemplate.delete(KEY);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (redisTemplate != null) {
+            redisTemplate.delete(KEY);
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void limitHoldsAcrossNodes() throws Exception {
+        // Three "replicas", each with its own prefetch, drawing from one bucket of 10 tokens a minute
+        List<TokenBucket> nodes = List.of(node(3), node(3), node(3));
+        AtomicInteger granted = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 300; i++) {
+                TokenBucket node = nodes.get(i % nodes.size());
+                executor.submit(() -> {
+                    if (node.tryConsume(1)) {
+                        granted.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        assertThat(granted).hasValue(10);
+    }
+
+    @Test
+    void prefetchedTokensExpire() throws Exception {
+        TokenBucket first = new RedisTokenBucket(redisTemplate, KEY, 4, Duration.ofMinutes(1), 4,
+            Duration.ofMillis(50), localBucket());
+        TokenBucket second = node(1);
+
+        assertThat(first.tryConsume(1)).isTrue();
+        Thread.sleep(100);
+
+        // The three tokens the first node prefetched are gone, not handed out later
+        assertThat(first.tryConsume(1)).isFalse();
+        assertThat(second.tryConsume(1)).isFalse();
+    }
+
+    @Test
+    void fallsBackToTheLocalBucketWithoutRedis() {
+        LettuceConnectionFactory unreachable = new LettuceConnectionFactory("localhost", 1);
+        unreachable.afterPropertiesSet();
+        unreachable.start();
+        try {
+            TokenBucket bucket = new RedisTokenBucket(new StringRedisTemplate(unreachable), KEY, 100,
+                Duration.ofMinutes(1), 5, Duration.ofSeconds(1), localBucket());
+
+            assertThat(bucket.tryConsume(1)).isTrue();
+            assertThat(bucket.tryConsume(1)).isTrue();
+            assertThat(bucket.tryConsume(1)).isFalse();
+        } finally {
+            unreachable.destroy();
+        }
+    }
+
+    private TokenBucket node(long prefetch) {
+        return new RedisTokenBucket(redisTemplate, KEY, 10, Duration.ofMinutes(1), prefetch,
+            Duration.ofSeconds(30), localBucket());
+    }
+
+    private static TokenBucket localBucket() {
+        return new LocalTokenBucket(2, Duration.ofMinutes(1));
+    }
+}
@@ -0,0 +1,83 @@
+package com.erikandreas.exchangedataservice.resilience;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import com.erikandreas.exchangedataservice.ratelimit.ExchangeRateLimiter;
+import com.erikandreas.exchangedataservice.ratelimit.LocalTokenBucket;
+import com.erikandreas.exchangedataservice.service.RateLimitService;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExchangeCallGuardTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExchangeRateLimiter binanceLimiter = limiter("binance", 100);
+    private final ExchangeCallGuard callGuard = new ExchangeCallGuard(
+        CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .slidingWindowSize(4)
+            .minimumNumberOfCalls(4)
+            .failureRateThreshold(50)
+            .waitDurationInOpenState(Duration.ofMinutes(1))
+            .recordException(new UpstreamFailurePredicate())
+            .ignoreExceptions(RateLimitExceededException.class)
+            .build()),
+        new RateLimitService(binanceLimiter, limiter("kraken", 100), false, 0, Duration.ZERO, Duration.ZERO,
+            meterRegistry));
+
+    @Test
+    void opensAfterUpstreamFailuresAndThenFailsFastWithoutSpendingTokens() {
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> callGuard.call("binance", 1, () -> {
+                throw new ExchangeException("Failed to fetch price from Binance",
+                    new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+            })).isInstanceOf(ExchangeException.class);
+        }
+        assertThat(callGuard.getState("binance")).isEqualTo(CircuitBreaker.State.OPEN);
+        long tokens = binanceLimiter.getAvailableTokens();
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> callGuard.call("binance", 1, calls::incrementAndGet))
+            .isInstanceOf(ExchangeException.class)
+            .hasCauseInstanceOf(CallNotPermittedException.class);
+        StepVerifier.create(callGuard.callReactive("binance", 1, () -> Mono.fromCallable(calls::incrementAndGet)))
+            .expectError(ExchangeException.class)
+            .verify();
+
+        assertThat(calls).hasValue(0);
+        assertThat(binanceLimiter.getAvailableTokens()).isEqualTo(tokens);
+        assertThat(callGuard.getState("kraken")).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void rejectedRequestsDoNotOpenTheBreaker() {
+        for (int i = 0; i < 8; i++) {
+            StepVerifier.create(callGuard.callReactive("binance", 1, () -> Mono.error(new ExchangeException(
+                    "Binance API error: 400 BAD_REQUEST", new HttpClientErrorException(HttpStatus.BAD_REQUEST)))))
+                .expectError(ExchangeException.class)
+                .verify();
+        }
+
+        assertThat(callGuard.getState("binance")).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(callGuard.call("binance", 1, () -> "ok")).isEqualTo("ok");
+    }
+
+    private ExchangeRateLimiter limiter(String exchange, long quota) {
+        return new ExchangeRateLimiter(exchange, new LocalTokenBucket(quota, Duration.ofHours(1)), quota,
+            Duration.ofHours(1), null, meterRegistry);
+    }
+}
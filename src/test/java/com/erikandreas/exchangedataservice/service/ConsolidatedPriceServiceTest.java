@@ -0,0 +1,83 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.model.ConsolidatedPrice;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConsolidatedPriceServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BinanceWebClientService binance = mock(BinanceWebClientService.class);
+    private final KrakenWebClientService kraken = mock(KrakenWebClientService.class);
+    private final ConsolidatedPriceService service =
+        new ConsolidatedPriceService(binance, kraken, new SymbolIndex(Duration.ofMinutes(10), meterRegistry),
+            Duration.ofMillis(200), meterRegistry);
+
+    @Test
+    void consolidatesPricesOfAllExchanges() {
+        when(binance.getPrice("BTCUSDT")).thenReturn(Mono.just(price("Binance", "45000.10", "45000.00", "45000.20")));
+        when(kraken.getPrice("BTCUSDT")).thenReturn(Mono.just(price("Kraken", "45000.30", "45000.05", "45000.30")));
+
+        ConsolidatedPrice consolidated = service.getConsolidatedPrice("BTCUSDT").block();
+
+        assertThat(consolidated.getMedian()).isEqualByComparingTo("45000.20");
+        assertThat(consolidated.getMin()).isEqualByComparingTo("45000.10");
+        assertThat(consolidated.getMax()).isEqualByComparingTo("45000.30");
+        assertThat(consolidated.getSpread()).isEqualByComparingTo("0.20");
+        assertThat(consolidated.getBestBid()).isEqualByComparingTo("45000.05");
+        assertThat(consolidated.getBestBidExchange()).isEqualTo("Kraken");
+        assertThat(consolidated.getBestAsk()).isEqualByComparingTo("45000.20");
+        assertThat(consolidated.getBestAskExchange()).isEqualTo("Binance");
+        assertThat(consolidated.getExchanges()).containsExactly("binance", "kraken");
+        assertThat(consolidated.getMissing()).isEmpty();
+    }
+
+    @Test
+    void leavesOutExchangesThatMissTheDeadline() {
+        when(binance.getPrice("BTCUSDT")).thenReturn(Mono.just(price("Binance", "45000.10", null, null)));
+        when(kraken.getPrice("BTCUSDT")).thenReturn(Mono.delay(Duration.ofSeconds(5)).map(tick -> price("Kraken", "1", null, null)));
+
+        long start = System.nanoTime();
+        ConsolidatedPrice consolidated = service.getConsolidatedPrice("BTCUSDT").block();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(consolidated.getMedian()).isEqualByComparingTo("45000.10");
+        assertThat(consolidated.getBestBid()).isNull();
+        assertThat(consolidated.getExchanges()).containsExactly("binance");
+        assertThat(consolidated.getMissing()).containsExactly("kraken");
+        assertThat(meterRegistry.get("price.consolidated.venues").tags("exchange", "kraken", "outcome", "timeout")
+            .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsWhenNoExchangeAnswers() {
+        when(binance.getPrice("BTCUSDT")).thenReturn(Mono.error(new ExchangeException("down", null)));
+        when(kraken.getPrice("BTCUSDT")).thenReturn(Mono.never());
+
+        StepVerifier.create(service.getConsolidatedPrice("BTCUSDT"))
+            .expectError(ExchangeException.class)
+            .verify(Duration.ofSeconds(1));
+    }
+
+    private static CryptoPrice price(String exchange, String price, String bid, String ask) {
+        return CryptoPrice.builder()
+            .symbol("BTCUSDT")
+            .exchange(exchange)
+            .price(new BigDecimal(price))
+            .bid(bid != null ? new BigDecimal(bid) : null)
+            .ask(ask != null ? new BigDecimal(ask) : null)
+            .build();
+    }
+}
@@ -0,0 +1,143 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.cache.CompactRedisSerializer;
+import com.erikandreas.exchangedataservice.config.RedisConfig;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.DailyAverageSeries;
+import com.erikandreas.exchangedataservice.model.DailyPriceAverage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against a Redis on localhost:6379 and is skipped when none is available.
+ */
+class DailyAveragePriceServiceTest {
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private RedisTemplate<String, Object> legacyRedisTemplate;
+    private DailyAveragePriceService averagePriceService;
+    private final AtomicInteger samples = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory("localhost", 6379);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        try {
+            template.execute(connection -> connection.ping(), true);
+        } catch (Exception e) {
+            assumeTrue(false, "Redis is not available on localhost:6379");
+        }
+        redisTemplate = template;
+
+        legacyRedisTemplate = new RedisTemplate<>();
+        legacyRedisTemplate.setConnectionFactory(connectionFactory);
+        legacyRedisTemplate.setKeySerializer(new StringRedisSerializer());
+        legacyRedisTemplate.setValueSerializer(new CompactRedisSerializer(
+            new GenericJackson2JsonRedisSerializer(new RedisConfig().objectMapper()), false));
+        legacyRedisTemplate.afterPropertiesSet();
+
+        averagePriceService = new DailyAveragePriceService(redisTemplate, legacyRedisTemplate, Duration.ofDays(400));
+        redisTemplate.delete(redisTemplate.keys("daily:*:binance:TESTUSDT:*"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (redisTemplate != null) {
+            redisTemplate.delete(redisTemplate.keys("daily:*:binance:TESTUSDT:*"));
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void concurrentUpdatesAreNotLost() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 20; i++) {
+                executor.submit(() -> averagePriceService.recordPrices("binance", nextPrices(10)));
+            }
+        }
+
+        DailyPriceAverage average = averagePriceService.getDailyAverage("binance", "TESTUSDT", LocalDate.now());
+
+        assertThat(average.getNumberOfUpdates()).isEqualTo(200);
+        assertThat(average.getAveragePrice()).isEqualByComparingTo("150.00000001");
+        assertThat(redisTemplate.getExpire("daily:agg:binance:TESTUSDT:" + LocalDate.now())).isPositive();
+    }
+
+    @Test
+    void includesAverageStoredBeforeTheRunningSum() {
+        LocalDate today = LocalDate.now();
+        legacyRedisTemplate.opsForValue().set("daily:avg:binance:TESTUSDT:" + today, DailyPriceAverage.builder()
+            .symbol("TESTUSDT")
+            .exchange("binance")
+            .averagePrice(new BigDecimal("300"))
+            .date(today)
+            .numberOfUpdates(2)
+            .build());
+
+        averagePriceService.recordPrices("binance", nextPrices(2));
+        DailyPriceAverage average = averagePriceService.getDailyAverage("binance", "TESTUSDT", today);
+
+        assertThat(average.getNumberOfUpdates()).isEqualTo(4);
+        assertThat(average.getAveragePrice()).isEqualByComparingTo("225.00000000");
+        assertThat(averagePriceService.getDailyAverage("binance", "TESTUSDT", today.minusDays(1))).isNull();
+    }
+
+    @Test
+    void seriesHasOnePointPerDayWithGapsForMissingDays() {
+        LocalDate today = LocalDate.now();
+        redisTemplate.opsForHash().putAll("daily:agg:binance:TESTUSDT:" + today.minusDays(3),
+            Map.of("sum", "30000000000", "count", "3"));
+        averagePriceService.recordPrices("binance", nextPrices(2));
+
+        List<DailyAverageSeries> series = averagePriceService.getDailyAverages(
+            "binance", List.of("TESTUSDT", "NODATAUSDT"), today.minusDays(4), today);
+
+        assertThat(series).extracting(DailyAverageSeries::getSymbol).containsExactly("TESTUSDT", "NODATAUSDT");
+        List<DailyAverageSeries.Point> points = series.get(0).getPoints();
+        assertThat(points).extracting(DailyAverageSeries.Point::getDate)
+            .containsExactly(today.minusDays(4), today.minusDays(3), today.minusDays(2), today.minusDays(1), today);
+        assertThat(points).extracting(DailyAverageSeries.Point::getNumberOfUpdates).containsExactly(0, 3, 0, 0, 2);
+        assertThat(points.get(0).getAveragePrice()).isNull();
+        assertThat(points.get(1).getAveragePrice()).isEqualByComparingTo("100");
+        assertThat(points.get(4).getAveragePrice()).isEqualByComparingTo("150.00000001");
+        assertThat(series.get(1).getPoints()).hasSize(5)
+            .allSatisfy(point -> assertThat(point.getAveragePrice()).isNull());
+    }
+
+    // Alternates between two prices so the expected mean is known
+    private List<CryptoPrice> nextPrices(int count) {
+        List<CryptoPrice> prices = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            prices.add(CryptoPrice.builder()
+                .symbol("TESTUSDT")
+                .price(samples.getAndIncrement() % 2 == 0 ? new BigDecimal("100.00000001") : new BigDecimal("200"))
+                .exchange("Binance")
+                .timestamp(LocalDateTime.now())
+                .build());
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,142 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.cache.BlockingPriceCache;
+import com.erikandreas.exchangedataservice.cache.CacheInvalidationPublisher;
+import com.erikandreas.exchangedataservice.cache.TwoTierCacheManager;
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import com.erikandreas.exchangedataservice.ingestion.LatestPriceTable;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DailyAverageUpdateServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DailyAveragePriceService averagePriceService = mock(DailyAveragePriceService.class);
+    private final BinanceRestTemplateService binance = mock(BinanceRestTemplateService.class);
+    private final KrakenRestTemplateService kraken = mock(KrakenRestTemplateService.class);
+    private final SymbolIndex symbolIndex = new SymbolIndex(Duration.ofMinutes(10), meterRegistry);
+
+    @Test
+    void fetchesBatchesConcurrentlyWithinTheExchangeLimit() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(binance.getFreshPrices(anyList())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            inFlight.decrementAndGet();
+            List<String> symbols = invocation.getArgument(0);
+            return symbols.stream().map(DailyAverageUpdateServiceTest::price).toList();
+        });
+        when(kraken.getFreshPrices(anyList())).thenThrow(new RateLimitExceededException("kraken"));
+
+        service(symbols(250), symbols(30)).updateAll();
+
+        verify(binance, times(5)).getFreshPrices(argThat(batch -> batch.size() <= 50));
+        verify(averagePriceService, times(5)).recordPrices(eq("binance"), anyList());
+        assertThat(maxInFlight.get()).isEqualTo(2);
+        assertThat(updates("binance", "success")).isEqualTo(250);
+        assertThat(updates("kraken", "rate_limited")).isEqualTo(30);
+        assertThat(meterRegistry.get("daily.average.run.duration").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void countsSymbolsMissingFromAResponseAsFailures() {
+        when(binance.getFreshPrices(anyList())).thenReturn(List.of(price("S0USDT")));
+        when(kraken.getFreshPrices(anyList())).thenThrow(new IllegalStateException("boom"));
+
+        service(symbols(3), symbols(2)).updateAll();
+
+        assertThat(updates("binance", "success")).isEqualTo(1);
+        assertThat(updates("binance", "failure")).isEqualTo(2);
+        assertThat(updates("kraken", "failure")).isEqualTo(2);
+        verify(averagePriceService, times(0)).recordPrices(eq("kraken"), anyList());
+    }
+
+    @Test
+    void fetchesStaleCachedPricesAgainInsteadOfRecordingThem() throws InterruptedException {
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+            new ConcurrentMapCacheManager(),
+            mock(CacheInvalidationPublisher.class),
+            meterRegistry,
+            100,
+            Duration.ofSeconds(10),
+            Duration.ofMillis(1),
+            Duration.ofMinutes(10),
+            1.0,
+            Duration.ofSeconds(5));
+        BlockingPriceCache priceCache = new BlockingPriceCache(cacheManager, new LatestPriceTable(Duration.ofSeconds(10)));
+        priceCache.refresh("binance", List.of("S0USDT"), symbols -> List.of(price("S0USDT", "100")));
+        Thread.sleep(20);
+        when(binance.getFreshPrices(anyList())).thenAnswer(invocation ->
+            priceCache.getAllFresh("binance", invocation.getArgument(0), symbols -> List.of(price("S0USDT", "200"))));
+
+        service(symbols(1), List.of()).updateAll();
+
+        verify(averagePriceService).recordPrices(eq("binance"), argThat(prices -> prices.size() == 1
+            && prices.get(0).getPrice().compareTo(new BigDecimal("200")) == 0
+            && prices.get(0).getStale() == null));
+        assertThat(updates("binance", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void leavesUnlistedSymbolsOutOfTheirBatch() {
+        symbolIndex.update("binance", Map.of("S0USDT", "S0USDT", "S2USDT", "S2USDT"));
+        when(binance.getFreshPrices(anyList())).thenAnswer(invocation -> {
+            List<String> symbols = invocation.getArgument(0);
+            return symbols.stream().map(DailyAverageUpdateServiceTest::price).toList();
+        });
+
+        DailyAverageUpdateService service = service(symbols(3), List.of());
+        service.updateAll();
+        service.updateAll();
+
+        verify(binance, times(2)).getFreshPrices(List.of("S0USDT", "S2USDT"));
+        verify(averagePriceService, times(2)).recordPrices(eq("binance"), argThat(prices -> prices.size() == 2));
+        assertThat(updates("binance", "success")).isEqualTo(4);
+        assertThat(updates("binance", "unlisted")).isEqualTo(2);
+        assertThat(updates("binance", "failure")).isZero();
+    }
+
+    private DailyAverageUpdateService service(List<String> binanceSymbols, List<String> krakenSymbols) {
+        return new DailyAverageUpdateService(
+            averagePriceService, binance, kraken, binanceSymbols, krakenSymbols, 2, 1, 50, symbolIndex, meterRegistry);
+    }
+
+    private double updates(String exchange, String outcome) {
+        return meterRegistry.get("daily.average.updates")
+            .tags("exchange", exchange, "outcome", outcome)
+            .counter()
+            .count();
+    }
+
+    private static List<String> symbols(int count) {
+        return IntStream.range(0, count).mapToObj(i -> "S" + i + "USDT").toList();
+    }
+
+    private static CryptoPrice price(String symbol) {
+        return price(symbol, "10");
+    }
+
+    private static CryptoPrice price(String symbol, String price) {
+        return CryptoPrice.builder().symbol(symbol).price(new BigDecimal(price)).exchange("Binance").build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.cache.BlockingPriceCache;
+import com.erikandreas.exchangedataservice.cache.CacheInvalidationPublisher;
+import com.erikandreas.exchangedataservice.cache.CachedValue;
+import com.erikandreas.exchangedataservice.cache.HotKeyTracker;
+import com.erikandreas.exchangedataservice.cache.TwoTierCacheManager;
+import com.erikandreas.exchangedataservice.ingestion.LatestPriceTable;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.ratelimit.Priority;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HotPriceRefreshServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrentMapCacheManager remoteCacheManager = new ConcurrentMapCacheManager();
+    private final HotKeyTracker hotKeys = new HotKeyTracker(100, Duration.ofMinutes(1));
+    private final RateLimitService rateLimitService = mock(RateLimitService.class);
+    private final BinanceRestTemplateService binance = mock(BinanceRestTemplateService.class);
+    private final KrakenRestTemplateService kraken = mock(KrakenRestTemplateService.class);
+    private final Queue<Priority> refreshPriorities = new ConcurrentLinkedQueue<>();
+    private BlockingPriceCache priceCache;
+    private HotPriceRefreshService refreshService;
+
+    @BeforeEach
+    void setUp() {
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(
+            remoteCacheManager,
+            mock(CacheInvalidationPublisher.class),
+            meterRegistry,
+            100,
+            Duration.ofSeconds(10),
+            Duration.ofMinutes(1),
+            Duration.ofMinutes(10),
+            1.0,
+            Duration.ofSeconds(5));
+        cacheManager.getCache("prices");
+        priceCache = new BlockingPriceCache(cacheManager, new LatestPriceTable(Duration.ofSeconds(10)));
+        when(rateLimitService.hasSpareCapacity(anyString(), anyDouble())).thenReturn(true);
+        when(binance.refreshPrices(anyList())).thenAnswer(invocation -> {
+            refreshPriorities.add(Priority.current());
+            List<String> symbols = invocation.getArgument(0);
+            return priceCache.refresh("binance", symbols, requested -> requested.stream().map(symbol -> price(symbol, "2")).toList());
+        });
+        refreshService = new HotPriceRefreshService(
+            hotKeys, priceCache, rateLimitService, binance, kraken, true, 20, 3, Duration.ofSeconds(10), 0.2, meterRegistry);
+    }
+
+    @Test
+    void refreshesHotPricesAboutToGoStaleAtBackgroundPriority() {
+        cached("binance", "BTCUSDT", 55);
+        cached("binance", "ETHUSDT", 0);
+        hit("binance", "BTCUSDT", 5);
+        hit("binance", "ETHUSDT", 5);
+
+        refreshService.refreshHotPrices();
+
+        verify(binance).refreshPrices(List.of("BTCUSDT"));
+        assertThat(refreshPriorities).containsExactly(Priority.BACKGROUND);
+        assertThat(priceCache.dueForRefresh("binance", List.of("BTCUSDT"), Duration.ofSeconds(10))).isEmpty();
+        assertThat(refreshes("binance", "success")).isEqualTo(1);
+    }
+
+    @Test
+    void leavesColdPricesToExpire() {
+        cached("binance", "SOLUSDT", 55);
+        hit("binance", "SOLUSDT", 2);
+
+        refreshService.refreshHotPrices();
+
+        verify(binance, never()).refreshPrices(anyList());
+        assertThat(refreshes("binance", "success")).isZero();
+        assertThat(refreshes("binance", "skipped")).isZero();
+    }
+
+    @Test
+    void skipsWhileTheRateLimitBudgetIsInUse() {
+        when(rateLimitService.hasSpareCapacity("binance", 0.2)).thenReturn(false);
+        hit("binance", "BTCUSDT", 5);
+        hit("binance", "ETHUSDT", 5);
+
+        refreshService.refreshHotPrices();
+
+        verify(binance, never()).refreshPrices(anyList());
+        assertThat(refreshes("binance", "skipped")).isEqualTo(2);
+    }
+
+    @Test
+    void countsFailedRefreshes() {
+        when(kraken.refreshPrices(anyList())).thenThrow(new IllegalStateException("upstream down"));
+        hit("kraken", "BTCUSD", 5);
+
+        refreshService.refreshHotPrices();
+
+        assertThat(refreshes("kraken", "failure")).isEqualTo(1);
+    }
+
+    private void cached(String exchange, String symbol, int ageSeconds) {
+        remoteCacheManager.getCache("prices").put(exchange + ":" + symbol,
+            new CachedValue(price(symbol, "1"), System.currentTimeMillis() - ageSeconds * 1000L, 100));
+    }
+
+    private void hit(String exchange, String symbol, int times) {
+        for (int i = 0; i < times; i++) {
+            hotKeys.record(exchange, symbol);
+        }
+    }
+
+    private double refreshes(String exchange, String outcome) {
+        return meterRegistry.get("cache.refresh.ahead")
+            .tags("exchange", exchange, "outcome", outcome)
+            .counter()
+            .count();
+    }
+
+    private static CryptoPrice price(String symbol, String value) {
+        return CryptoPrice.builder().symbol(symbol).price(new BigDecimal(value)).exchange("Binance").build();
+    }
+}
@@ -0,0 +1,115 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.model.BarInterval;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.model.PriceBar;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs against a Redis on localhost:6379 and is skipped when none is available.
+ */
+class PriceBarServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 2, 13, 10, 0);
+
+    private LettuceConnectionFactory connectionFactory;
+    private StringRedisTemplate redisTemplate;
+    private PriceBarService priceBarService;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory("localhost", 6379);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        StringRedisTemplate template = new StringRedisTemplate(connectionFactory);
+        try {
+            template.execute(connection -> connection.ping(), true);
+        } catch (Exception e) {
+            assumeTrue(false, "Redis is not available on localhost:6379");
+        }
+        redisTemplate = template;
+        priceBarService = new PriceBarService(redisTemplate, Duration.ofDays(3650), Duration.ofDays(3650), Duration.ofHours(2));
+        redisTemplate.delete(redisTemplate.keys("bars:*:binance:TESTUSDT"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (redisTemplate != null) {
+            redisTemplate.delete(redisTemplate.keys("bars:*:binance:TESTUSDT"));
+            priceBarService.shutdown();
+        }
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void foldsPricesIntoBarsOfEveryInterval() {
+        priceBarService.record("binance", List.of(
+            price("100.5", START.plusSeconds(1)),
+            price("103", START.plusSeconds(20)),
+            price("99.25", START.plusSeconds(40)),
+            price("101", START.plusSeconds(59)),
+            price("102", START.plusMinutes(1).plusSeconds(5))));
+
+        List<PriceBar> minutes = bars(BarInterval.ONE_MINUTE, START, START.plusHours(1));
+        List<PriceBar> hours = bars(BarInterval.ONE_HOUR, START, START.plusHours(1));
+
+        assertThat(minutes).hasSize(2);
+        PriceBar first = minutes.get(0);
+        assertThat(first.getOpenTime()).isEqualTo(START);
+        assertThat(first.getOpen()).isEqualByComparingTo("100.5");
+        assertThat(first.getHigh()).isEqualByComparingTo("103");
+        assertThat(first.getLow()).isEqualByComparingTo("99.25");
+        assertThat(first.getClose()).isEqualByComparingTo("101");
+        assertThat(first.getCount()).isEqualTo(4);
+        assertThat(minutes.get(1).getOpenTime()).isEqualTo(START.plusMinutes(1));
+
+        assertThat(hours).singleElement().satisfies(bar -> {
+            assertThat(bar.getClose()).isEqualByComparingTo("102");
+            assertThat(bar.getCount()).isEqualTo(5);
+        });
+    }
+
+    @Test
+    void pagesThroughLongRangesAndAppliesRetention() {
+        List<CryptoPrice> prices = new ArrayList<>();
+        for (int minute = 0; minute < 1200; minute++) {
+            prices.add(price(Integer.toString(100 + minute), START.plusMinutes(minute)));
+        }
+        priceBarService.record("binance", prices);
+
+        List<PriceBar> minutes = bars(BarInterval.ONE_MINUTE, START, START.plusDays(1));
+        List<PriceBar> hours = bars(BarInterval.ONE_HOUR, START, START.plusDays(1));
+
+        assertThat(minutes).hasSize(1200);
+        assertThat(minutes).extracting(PriceBar::getOpenTime).isSorted();
+        // Hourly bars are kept for two hours behind the newest one
+        assertThat(hours).extracting(PriceBar::getOpenTime)
+            .containsExactly(START.plusHours(17), START.plusHours(18), START.plusHours(19));
+    }
+
+    private List<PriceBar> bars(BarInterval interval, LocalDateTime from, LocalDateTime to) {
+        return priceBarService.getBars("binance", "TESTUSDT", interval, from, to).collectList().block();
+    }
+
+    private static CryptoPrice price(String price, LocalDateTime timestamp) {
+        return CryptoPrice.builder()
+            .symbol("TESTUSDT")
+            .price(new BigDecimal(price))
+            .exchange("Binance")
+            .timestamp(timestamp)
+            .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import com.erikandreas.exchangedataservice.symbol.SymbolIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriceStreamServiceTest {
+
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final Queue<String> upstreamPrices = new ConcurrentLinkedQueue<>();
+    private SimpleMeterRegistry meterRegistry;
+    private PriceStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        BinanceWebClientService binance = mock(BinanceWebClientService.class);
+        when(binance.getPrice(anyString())).thenAnswer(invocation -> Mono.fromSupplier(() -> {
+            upstreamCalls.incrementAndGet();
+            String next = upstreamPrices.size() > 1 ? upstreamPrices.poll() : upstreamPrices.peek();
+            return price(invocation.getArgument(0), next);
+        }));
+        meterRegistry = new SimpleMeterRegistry();
+        streamService = new PriceStreamService(
+            binance, mock(KrakenWebClientService.class), new SymbolIndex(Duration.ofMinutes(10), meterRegistry),
+            Duration.ofMillis(50), meterRegistry);
+    }
+
+    @Test
+    void subscribersShareOneRefreshLoopAndOnlySeeChanges() {
+        upstreamPrices.addAll(List.of("45000.00", "45000.0", "45000.00", "45100.00"));
+        Queue<CryptoPrice> first = new ConcurrentLinkedQueue<>();
+        Queue<CryptoPrice> second = new ConcurrentLinkedQueue<>();
+
+        Disposable a = streamService.subscribe(List.of("binance:BTCUSDT"), "sse").subscribe(first::add);
+        Disposable b = streamService.subscribe(List.of("binance:BTCUSDT"), "websocket").subscribe(second::add);
+
+        await().atMost(Duration.ofSeconds(2)).until(() -> first.size() == 2 && upstreamCalls.get() >= 6);
+        assertThat(first).extracting(CryptoPrice::getPrice)
+            .containsExactly(new BigDecimal("45000.00"), new BigDecimal("45100.00"));
+        assertThat(second).extracting(CryptoPrice::getPrice).contains(new BigDecimal("45100.00"));
+        assertThat(connections("sse") + connections("websocket")).isEqualTo(2);
+        assertThat(meterRegistry.get("price.stream.feeds").gauge().value()).isEqualTo(1);
+
+        a.dispose();
+        b.dispose();
+        int callsAfterLastSubscriber = upstreamCalls.get();
+        await().during(Duration.ofMillis(200)).atMost(Duration.ofSeconds(1))
+            .until(() -> upstreamCalls.get() == callsAfterLastSubscriber);
+        assertThat(meterRegistry.get("price.stream.feeds").gauge().value()).isZero();
+        assertThat(connections("sse") + connections("websocket")).isZero();
+    }
+
+    @Test
+    void slowSubscriberGetsTheLatestPriceOfEveryPair() {
+        Map<String, AtomicInteger> ticks = Map.of("BTCUSDT", new AtomicInteger(), "ETHUSDT", new AtomicInteger());
+        AtomicBoolean frozen = new AtomicBoolean();
+        BinanceWebClientService binance = mock(BinanceWebClientService.class);
+        when(binance.getPrice(anyString())).thenAnswer(invocation -> Mono.fromSupplier(() -> {
+            String symbol = invocation.getArgument(0);
+            AtomicInteger tick = ticks.get(symbol);
+            return price(symbol, Integer.toString(frozen.get() ? tick.get() : tick.incrementAndGet()));
+        }));
+        PriceStreamService service = new PriceStreamService(
+            binance, mock(KrakenWebClientService.class), new SymbolIndex(Duration.ofMinutes(10), meterRegistry),
+            Duration.ofMillis(20), meterRegistry);
+
+        Queue<CryptoPrice> received = new ConcurrentLinkedQueue<>();
+        BaseSubscriber<CryptoPrice> slow = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(CryptoPrice price) {
+                received.add(price);
+            }
+        };
+        service.subscribe(List.of("binance:BTCUSDT", "binance:ETHUSDT"), "sse").subscribe(slow);
+
+        await().atMost(Duration.ofSeconds(2))
+            .until(() -> ticks.values().stream().allMatch(tick -> tick.get() >= 5));
+        frozen.set(true);
+        await().pollDelay(Duration.ofMillis(100)).until(() -> true);
+        slow.requestUnbounded();
+
+        ticks.forEach((symbol, tick) -> await().atMost(Duration.ofSeconds(1)).until(() -> received.stream()
+            .anyMatch(price -> price.getSymbol().equals(symbol)
+                && price.getPrice().compareTo(BigDecimal.valueOf(tick.get())) == 0)));
+        slow.dispose();
+    }
+
+    @Test
+    void rejectsMalformedPairsBeforeOpeningFeeds() {
+        assertThatThrownBy(() -> streamService.subscribe(List.of("binance:BTCUSDT", "nasdaq:AAPL"), "sse"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> streamService.subscribe(List.of("BTCUSDT"), "sse"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(meterRegistry.get("price.stream.feeds").gauge().value()).isZero();
+    }
+
+    private double connections(String transport) {
+        return meterRegistry.get("price.stream.connections").tag("transport", transport).gauge().value();
+    }
+
+    private static CryptoPrice price(String symbol, String value) {
+        return CryptoPrice.builder()
+            .symbol(symbol)
+            .price(new BigDecimal(value))
+            .exchange("Binance")
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+}
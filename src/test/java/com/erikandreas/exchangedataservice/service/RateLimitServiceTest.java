@@ -0,0 +1,84 @@
+package com.erikandreas.exchangedataservice.service;
+
+import com.erikandreas.exchangedataservice.exception.RateLimitExceededException;
+import com.erikandreas.exchangedataservice.ratelimit.ExchangeRateLimiter;
+import com.erikandreas.exchangedataservice.ratelimit.LocalTokenBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void recordsConsumedRejectedAndRemainingTokens() {
+        RateLimitService rateLimitService = new RateLimitService(limiter("binance", 3), limiter("kraken", 10),
+            false, 0, Duration.ZERO, Duration.ZERO, meterRegistry);
+
+        for (int i = 0; i < 5; i++) {
+            rateLimitService.tryConsume("Binance");
+        }
+
+        assertThat(meterRegistry.get("rate.limit.tokens").tags("exchange", "binance", "result", "consumed")
+            .counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("rate.limit.tokens").tags("exchange", "binance", "result", "rejected")
+            .counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("rate.limit.tokens.available").tag("exchange", "binance")
+            .gauge().value()).isZero();
+        assertThat(meterRegistry.get("rate.limit.tokens.available").tag("exchange", "kraken")
+            .gauge().value()).isEqualTo(10);
+    }
+
+    @Test
+    void consumesRequestWeight() {
+        RateLimitService rateLimitService = new RateLimitService(limiter("binance", 10), limiter("kraken", 10),
+            false, 0, Duration.ZERO, Duration.ZERO, meterRegistry);
+
+        assertThat(rateLimitService.tryConsume("binance", 4)).isTrue();
+        assertThat(rateLimitService.tryConsume("binance", 4)).isTrue();
+        assertThat(rateLimitService.tryConsume("binance", 4)).isFalse();
+        assertThat(rateLimitService.tryConsume("binance", 2)).isTrue();
+        assertThat(meterRegistry.get("rate.limit.tokens").tags("exchange", "binance", "result", "consumed")
+            .counter().count()).isEqualTo(10);
+    }
+
+    @Test
+    void rejectsAtOnceWithRetryAfterWhenAdmissionIsDisabled() {
+        RateLimitService rateLimitService = new RateLimitService(limiter("binance", 2), limiter("kraken", 10),
+            false, 0, Duration.ZERO, Duration.ZERO, meterRegistry);
+
+        rateLimitService.acquire("binance", 2);
+
+        assertThatThrownBy(() -> rateLimitService.acquire("binance", 1))
+            .isInstanceOfSatisfying(RateLimitExceededException.class,
+                e -> assertThat(e.getRetryAfter()).isPositive());
+    }
+
+    @Test
+    void waitsForATokenWhenAdmissionIsEnabled() {
+        ExchangeRateLimiter binance = new ExchangeRateLimiter("binance", new LocalTokenBucket(1, Duration.ofMillis(200)), 1,
+            Duration.ofMillis(200), null, meterRegistry);
+        RateLimitService rateLimitService = new RateLimitService(binance, limiter("kraken", 10),
+            true, 10, Duration.ofSeconds(2), Duration.ofSeconds(2), meterRegistry);
+        try {
+            rateLimitService.acquire("binance", 1);
+            rateLimitService.acquire("binance", 1);
+            rateLimitService.acquireReactive("binance", 1).block(Duration.ofSeconds(2));
+
+            assertThat(meterRegistry.get("rate.limit.tokens").tags("exchange", "binance", "result", "consumed")
+                .counter().count()).isEqualTo(3);
+        } finally {
+            rateLimitService.close();
+        }
+    }
+
+    private ExchangeRateLimiter limiter(String exchange, long quota) {
+        return new ExchangeRateLimiter(exchange, new LocalTokenBucket(quota, Duration.ofHours(1)), quota,
+            Duration.ofHours(1), null, meterRegistry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.erikandreas.exchangedataservice.symbol;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.exception.InvalidSymbolException;
+import com.erikandreas.exchangedataservice.resilience.ExchangeCallGuard;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class SymbolIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SymbolIndex symbolIndex = new SymbolIndex(Duration.ofMinutes(10), meterRegistry);
+
+    @Test
+    void mapsListedSymbolsToExchangePairsFromFixtures() {
+        ExchangeCallGuard callGuard = mock(ExchangeCallGuard.class);
+        RestTemplate binance = mock(RestTemplate.class);
+        RestTemplate kraken = mock(RestTemplate.class);
+        new SymbolMetadataLoader(symbolIndex, callGuard, binance, kraken, new DefaultResourceLoader(), "classpath:symbols/")
+            .refresh();
+
+        assertThat(symbolIndex.resolve("binance", "ethusdt")).isEqualTo("ETHUSDT");
+        assertThat(symbolIndex.resolve("binance", "1000SATSUSDT")).isEqualTo("1000SATSUSDT");
+        assertThat(symbolIndex.resolve("kraken", "BTCUSDT")).isEqualTo("XBTUSDT");
+        assertThat(symbolIndex.resolve("kraken", "BTCUSD")).isEqualTo("XXBTZUSD");
+        assertThat(symbolIndex.resolve("kraken", "DOGEUSD")).isEqualTo("XDGUSD");
+        assertThat(symbolIndex.streamPair("kraken", "BTCUSD")).isEqualTo("BTC/USD");
+        assertThat(symbolIndex.streamPair("kraken", "DOGEUSD")).isEqualTo("DOGE/USD");
+        assertThat(symbolIndex.streamPair("kraken", "LUNAUSD")).isNull();
+        assertThat(symbolIndex.streamPair("binance", "ETHUSDT")).isEqualTo("ETHUSDT");
+        assertThat(symbolIndex.isListed("binance", "LUNAUSDT")).isFalse();
+        assertThat(symbolIndex.isListed("kraken", "LUNAUSD")).isFalse();
+        assertThatThrownBy(() -> symbolIndex.resolve("kraken", "BTCUSDTT"))
+            .isInstanceOf(InvalidSymbolException.class)
+            .hasMessage("Symbol BTCUSDTT is not listed on kraken");
+        assertThat(meterRegistry.get("symbol.rejections").tags("exchange", "kraken", "reason", "unknown")
+            .counter().count()).isEqualTo(2);
+        verifyNoInteractions(callGuard, binance, kraken);
+    }
+
+    @Test
+    void checksOnlyTheFormatUntilLoaded() {
+        assertThat(symbolIndex.isLoaded("kraken")).isFalse();
+        assertThat(symbolIndex.resolve("kraken", "BTCUSDT")).isEqualTo("XBTUSDT");
+        assertThat(symbolIndex.resolve("binance", "SOLUSDT")).isEqualTo("SOLUSDT");
+        assertThatThrownBy(() -> symbolIndex.resolve("binance", "BTC-USDT"))
+            .isInstanceOf(InvalidSymbolException.class);
+    }
+
+    @Test
+    void remembersSymbolsTheExchangeReportedAsUnknown() {
+        RuntimeException krakenUnknown = new ExchangeException("Kraken API error: EQuery:Unknown asset pair", null);
+        RuntimeException binanceUnknown = new ExchangeException("Binance API error: 400 BAD_REQUEST",
+            HttpClientErrorException.create(HttpStatus.BAD_REQUEST, "Bad Request", HttpHeaders.EMPTY,
+                "{\"code\":-1121,\"msg\":\"Invalid symbol.\"}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        RuntimeException outage = new ExchangeException("Failed to fetch price from Binance", null);
+
+        assertThat(symbolIndex.rejectedByExchange("kraken", "FOOUSD", krakenUnknown))
+            .isInstanceOf(InvalidSymbolException.class);
+        assertThat(symbolIndex.rejectedByExchange("binance", "FOOUSDT", binanceUnknown))
+            .isInstanceOf(InvalidSymbolException.class);
+        assertThat(symbolIndex.rejectedByExchange("binance", "BTCUSDT", outage)).isSameAs(outage);
+
+        assertThat(symbolIndex.isListed("kraken", "FOOUSD")).isFalse();
+        assertThat(symbolIndex.isListed("binance", "FOOUSDT")).isFalse();
+        assertThat(symbolIndex.isListed("binance", "BTCUSDT")).isTrue();
+        assertThat(meterRegistry.get("symbol.rejections").tags("exchange", "binance", "reason", "negative_cached")
+            .counter().count()).isEqualTo(1);
+    }
+}
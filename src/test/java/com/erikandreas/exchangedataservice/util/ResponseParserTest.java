@@ -0,0 +1,119 @@
+package com.erikandreas.exchangedataservice.util;
+
+import com.erikandreas.exchangedataservice.exception.ExchangeException;
+import com.erikandreas.exchangedataservice.model.CryptoPrice;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseParserTest {
+
+    @Test
+    void parsesBinanceTickerPrice() {
+        CryptoPrice price = ResponseParser.parseBinanceResponse(
+            bytes("{\"symbol\":\"BTCUSDT\",\"price\":\"45000.12000000\"}"), "BTCUSDT");
+
+        assertThat(price.getSymbol()).isEqualTo("BTCUSDT");
+        assertThat(price.getPrice()).isEqualByComparingTo("45000.12");
+        assertThat(price.getExchange()).isEqualTo("Binance");
+        assertThat(price.getTimestamp()).isNotNull();
+    }
+
+    @Test
+    void parsesBinanceBookTickersInBatch() {
+        List<CryptoPrice> prices = ResponseParser.parseBinanceBatchResponse(bytes("""
+            [{"symbol":"BTCUSDT","bidPrice":"44999.90","bidQty":"1.2","askPrice":"45000.10","askQty":"0.3"},
+             {"symbol":"ETHUSDT","price":"2500.5","extra":{"nested":[1,2,3]}}]
+            """));
+
+        assertThat(prices).extracting(CryptoPrice::getSymbol).containsExactly("BTCUSDT", "ETHUSDT");
+        assertThat(prices.get(0).getPrice()).isEqualByComparingTo("45000.10");
+        assertThat(prices.get(0).getBid()).isEqualByComparingTo("44999.90");
+        assertThat(prices.get(1).getPrice()).isEqualByComparingTo("2500.5");
+        assertThat(prices.get(1).getAsk()).isNull();
+    }
+
+    @Test
+    void rejectsBinanceTickerWithoutPrice() {
+        assertThatThrownBy(() -> ResponseParser.parseBinanceResponse(bytes("{\"symbol\":\"BTCUSDT\"}"), "BTCUSDT"))
+            .isInstanceOf(ExchangeException.class)
+            .hasMessage("Invalid response format from Binance");
+        assertThatThrownBy(() -> ResponseParser.parseBinanceResponse(bytes("{\"price\":\"abc\"}"), "BTCUSDT"))
+            .isInstanceOf(ExchangeException.class)
+            .hasMessage("Invalid price format in response");
+        assertThatThrownBy(() -> ResponseParser.parseBinanceBatchResponse(bytes("[{\"price\":\"1\"}]")))
+            .isInstanceOf(ExchangeException.class);
+    }
+
+    @Test
+    void parsesRequestedKrakenPairsInRequestOrder() {
+        Map<String, String> symbolsByPair = new LinkedHashMap<>();
+        symbolsByPair.put("ETHUSDT", "ETHUSDT");
+        symbolsByPair.put("XBTUSDT", "BTCUSDT");
+
+        List<CryptoPrice> prices = ResponseParser.parseKrakenResponse(bytes("""
+            {"error":[],"result":{
+              "XBTUSDT":{"a":["45000.10000","1","1.000"],"b":["44999.90000","2","2.000"],"c":["45000.0","0.1"],"v":["1","2"]},
+              "SOLUSDT":{"a":["100.0","1","1.000"],"b":["99.9","1","1.000"]},
+              "ETHUSDT":{"a":["2500.50","3","3.000"],"b":["2500.40","1","1.000"]}}}
+            """), symbolsByPair);
+
+        assertThat(prices).extracting(CryptoPrice::getSymbol).containsExactly("ETHUSDT", "BTCUSDT");
+        assertThat(prices.get(1).getPrice()).isEqualByComparingTo(new BigDecimal("45000.1"));
+        assertThat(prices.get(1).getBid()).isEqualByComparingTo(new BigDecimal("44999.9"));
+        assertThat(prices.get(1).getExchange()).isEqualTo("Kraken");
+    }
+
+    @Test
+    void surfacesKrakenErrorsAndMissingPairs() {
+        assertThatThrownBy(() -> ResponseParser.parseKrakenResponse(
+                bytes("{\"error\":[\"EQuery:Unknown asset pair\"]}"), Map.of("FOOUSD", "FOOUSD")))
+            .isInstanceOf(ExchangeException.class)
+            .hasMessage("Kraken API error: EQuery:Unknown asset pair");
+        assertThatThrownBy(() -> ResponseParser.parseKrakenResponse(
+                bytes("{\"error\":[],\"result\":{}}"), Map.of("XBTUSDT", "BTCUSDT")))
+            .isInstanceOf(ExchangeException.class)
+            .hasMessage("Invalid response format from Kraken");
+    }
+
+    @Test
+    void parsesStreamFramesAndSkipsNonTickers() {
+        assertThat(ResponseParser.parseBinanceStreamTicker("{\"result\":null,\"id\":1}")).isEmpty();
+        List<CryptoPrice> binance = ResponseParser.parseBinanceStreamTicker(
+            "{\"e\":\"24hrTicker\",\"s\":\"BTCUSDT\",\"c\":\"45000.10\",\"b\":\"45000.00\",\"B\":\"1.5\",\"a\":\"45000.20\"}");
+        assertThat(binance).singleElement().satisfies(price -> {
+            assertThat(price.getPrice()).isEqualTo(new BigDecimal("45000.10"));
+            assertThat(price.getBid()).isEqualTo(new BigDecimal("45000.00"));
+            assertThat(price.getAsk()).isEqualTo(new BigDecimal("45000.20"));
+        });
+
+        Map<String, String> symbolsByPair = Map.of("BTC/USDT", "BTCUSDT");
+        assertThat(ResponseParser.parseKrakenStreamMessage("{\"channel\":\"heartbeat\"}", symbolsByPair)).isEmpty();
+        assertThat(ResponseParser.parseKrakenStreamMessage(
+            "{\"channel\":\"status\",\"data\":[{\"system\":\"online\",\"api_version\":\"v2\"}]}", symbolsByPair)).isEmpty();
+        List<CryptoPrice> kraken = ResponseParser.parseKrakenStreamMessage("""
+            {"channel":"ticker","type":"update","data":[
+              {"symbol":"ETH/USD","bid":2500.1,"ask":2500.2},
+              {"symbol":"BTC/USDT","bid":45000.0,"bid_qty":0.5,"ask":45000.50,"last":4.50002E4}]}
+            """, symbolsByPair);
+        assertThat(kraken).singleElement().satisfies(price -> {
+            assertThat(price.getSymbol()).isEqualTo("BTCUSDT");
+            assertThat(price.getPrice()).isEqualTo(new BigDecimal("45000.50"));
+            assertThat(price.getBid()).isEqualTo(new BigDecimal("45000.0"));
+        });
+
+        assertThatThrownBy(() -> ResponseParser.parseBinanceStreamTicker("{\"s\":\"BTCUSDT\",\"c\":\"n/a\"}"))
+            .isInstanceOf(ExchangeException.class);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}